@@ -1 +1,348 @@
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.NoSuchElementException;
 
+/**
+ * A binary search tree that maps keys of any type to values, ordered by a
+ * pluggable Comparator. It generalizes the String-only tree of Assignment 10:
+ * the same add/find/remove logic works for any key as long as there is a way
+ * to compare two keys.
+ *
+ * For int and long keys use IntBST and LongBST instead; they store keys in
+ * primitive fields and compare them directly, avoiding boxing.
+ *
+ * @param <K> type of the keys
+ * @param <V> type of the values
+ */
+public class BST<K, V> {
+
+    /**
+     * Inner class for the nodes of the tree. Node fields are accessed directly,
+     * for simplicity of code.
+     */
+    private static class Node<K, V> {
+        K key;
+        V value;
+        Node<K, V> left;
+        Node<K, V> right;
+
+        Node(K key, V value) {
+            this.key = key;
+            this.value = value;
+        } // constructor
+    } // class Node
+
+    /** The entry point to the tree */
+    private Node<K, V> root;
+    /** Count of entries in the tree */
+    private int size;
+    /** Decides the order of the keys */
+    private final Comparator<? super K> comparator;
+
+    /**
+     * Constructor for keys with a natural order. Keys must implement Comparable,
+     * otherwise put throws a ClassCastException, even into an empty tree.
+     */
+    @SuppressWarnings("unchecked")
+    public BST() {
+        this((Comparator<? super K>) Comparator.naturalOrder());
+    } // default constructor
+
+    /**
+     * Constructor for keys ordered by a comparator.
+     *
+     * @param comparator order of the keys; two keys the comparator finds equal
+     *                   are the same key
+     */
+    public BST(Comparator<? super K> comparator) {
+        if (comparator == null) {
+            throw new IllegalArgumentException("Comparator cannot be null");
+        }
+        this.root = null;
+        this.size = 0;
+        this.comparator = comparator;
+    } // constructor
+
+    /**
+     * Associate a value with a key, replacing any value the key already had.
+     *
+     * @param key   key to insert
+     * @param value value to store
+     * @return the value previously associated with key, or null
+     */
+    public V put(K key, V value) {
+        V previous = null;
+        if (this.root == null) {
+            // Compare the key with itself, as TreeMap does, so that a key the
+            // comparator cannot handle is rejected even when nothing is compared
+            this.comparator.compare(key, key);
+            this.root = new Node<>(key, value);
+            this.size = 1;
+        } else {
+            Node<K, V> cursor = this.root;
+            Node<K, V> parent = null;
+            int comparison = 0;
+            while (cursor != null) {
+                parent = cursor;
+                comparison = this.comparator.compare(key, cursor.key);
+                if (comparison == 0) {
+                    // Existing key: swap the value and stop
+                    previous = cursor.value;
+                    cursor.value = value;
+                    cursor = null;
+                } else if (comparison < 0) {
+                    cursor = cursor.left;
+                } else {
+                    cursor = cursor.right;
+                }
+            }
+            if (comparison < 0) {
+                parent.left = new Node<>(key, value);
+                this.size++;
+            } else if (comparison > 0) {
+                parent.right = new Node<>(key, value);
+                this.size++;
+            }
+        }
+        return previous;
+    } // method put
+
+    /**
+     * Look up the value of a key.
+     *
+     * @param key key to look for
+     * @return the associated value, or null if the key is not in the tree
+     */
+    public V get(K key) {
+        Node<K, V> node = this.find(key);
+        V value = null;
+        if (node != null) {
+            value = node.value;
+        }
+        return value;
+    } // method get
+
+    /**
+     * Check whether a key is in the tree.
+     *
+     * @param key key to look for
+     * @return true if the key is in the tree
+     */
+    public boolean containsKey(K key) {
+        return this.find(key) != null;
+    } // method containsKey
+
+    /**
+     * Remove a key and its value.
+     *
+     * @param key key to remove
+     * @return the value that was associated with key, or null if it was absent
+     */
+    public V remove(K key) {
+        V removed = null;
+        Node<K, V> cursor = this.root;
+        Node<K, V> parent = null;
+        boolean found = false;
+        while (cursor != null && !found) {
+            int comparison = this.comparator.compare(key, cursor.key);
+            found = comparison == 0;
+            if (!found) {
+                parent = cursor;
+                if (comparison < 0) {
+                    cursor = cursor.left;
+                } else {
+                    cursor = cursor.right;
+                }
+            }
+        }
+        if (found) {
+            removed = cursor.value;
+            if (cursor.left != null && cursor.right != null) {
+                // Two children: move the in-order successor's entry here and unlink
+                // the successor instead, which has at most a right child
+                Node<K, V> successorParent = cursor;
+                Node<K, V> successor = cursor.right;
+                while (successor.left != null) {
+                    successorParent = successor;
+                    successor = successor.left;
+                }
+                cursor.key = successor.key;
+                cursor.value = successor.value;
+                this.replaceChild(successorParent, successor, successor.right);
+            } else if (cursor.left != null) {
+                this.replaceChild(parent, cursor, cursor.left);
+            } else {
+                this.replaceChild(parent, cursor, cursor.right);
+            }
+            this.size--;
+        }
+        return removed;
+    } // method remove
+
+    /**
+     * The smallest key in the tree.
+     *
+     * @return the first key in order
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public K firstKey() {
+        if (this.root == null) {
+            throw new NoSuchElementException("The tree is empty");
+        }
+        Node<K, V> cursor = this.root;
+        while (cursor.left != null) {
+            cursor = cursor.left;
+        }
+        return cursor.key;
+    } // method firstKey
+
+    /**
+     * The largest key in the tree.
+     *
+     * @return the last key in order
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public K lastKey() {
+        if (this.root == null) {
+            throw new NoSuchElementException("The tree is empty");
+        }
+        Node<K, V> cursor = this.root;
+        while (cursor.right != null) {
+            cursor = cursor.right;
+        }
+        return cursor.key;
+    } // method lastKey
+
+    /**
+     * The largest key less than or equal to a given key.
+     *
+     * @param key bound to search from
+     * @return the floor key, or null if every key is greater than key
+     */
+    public K floorKey(K key) {
+        K floor = null;
+        Node<K, V> cursor = this.root;
+        while (cursor != null) {
+            int comparison = this.comparator.compare(key, cursor.key);
+            if (comparison == 0) {
+                floor = cursor.key;
+                cursor = null;
+            } else if (comparison < 0) {
+                cursor = cursor.left;
+            } else {
+                // This key qualifies; a larger one may still be to the right
+                floor = cursor.key;
+                cursor = cursor.right;
+            }
+        }
+        return floor;
+    } // method floorKey
+
+    /**
+     * The smallest key greater than or equal to a given key.
+     *
+     * @param key bound to search from
+     * @return the ceiling key, or null if every key is less than key
+     */
+    public K ceilingKey(K key) {
+        K ceiling = null;
+        Node<K, V> cursor = this.root;
+        while (cursor != null) {
+            int comparison = this.comparator.compare(key, cursor.key);
+            if (comparison == 0) {
+                ceiling = cursor.key;
+                cursor = null;
+            } else if (comparison > 0) {
+                cursor = cursor.right;
+            } else {
+                // This key qualifies; a smaller one may still be to the left
+                ceiling = cursor.key;
+                cursor = cursor.left;
+            }
+        }
+        return ceiling;
+    } // method ceilingKey
+
+    /**
+     * The keys of the tree in order.
+     *
+     * @return a new list with every key, smallest first
+     */
+    public ArrayList<K> keys() {
+        ArrayList<K> keys = new ArrayList<>(this.size);
+        ArrayList<Node<K, V>> stack = new ArrayList<>();
+        Node<K, V> cursor = this.root;
+        while (cursor != null || !stack.isEmpty()) {
+            if (cursor != null) {
+                stack.add(cursor);
+                cursor = cursor.left;
+            } else {
+                cursor = stack.remove(stack.size() - 1);
+                keys.add(cursor.key);
+                cursor = cursor.right;
+            }
+        }
+        return keys;
+    } // method keys
+
+    /**
+     * Walk down to the node holding a key.
+     *
+     * @param key key to look for
+     * @return the node, or null if the key is not in the tree
+     */
+    private Node<K, V> find(K key) {
+        Node<K, V> cursor = this.root;
+        boolean found = false;
+        while (cursor != null && !found) {
+            int comparison = this.comparator.compare(key, cursor.key);
+            if (comparison == 0) {
+                found = true;
+            } else if (comparison < 0) {
+                cursor = cursor.left;
+            } else {
+                cursor = cursor.right;
+            }
+        }
+        return cursor;
+    } // helper method find
+
+    /**
+     * Point parent (or the root, when parent is null) at replacement instead of
+     * child.
+     *
+     * @param parent      parent of child, or null if child is the root
+     * @param child       child being replaced
+     * @param replacement new child, possibly null
+     */
+    private void replaceChild(Node<K, V> parent, Node<K, V> child, Node<K, V> replacement) {
+        if (parent == null) {
+            this.root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    } // helper method replaceChild
+
+    /** Simple string representation: the keys in order */
+    @Override
+    public String toString() {
+        return this.keys().toString();
+    } // method toString
+
+    /******************************* Accessors *******************************/
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+    public Comparator<? super K> comparator() {
+        return this.comparator;
+    }
+
+} // class BST
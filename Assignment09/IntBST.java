@@ -0,0 +1,322 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+
+/**
+ * A binary search tree that maps int keys to values. It is the BST of this
+ * assignment specialized for int keys: keys live in primitive fields and are
+ * compared with Integer.compare, so no key is ever boxed and no Comparator call
+ * is made on the way down the tree. Use it for numeric ids instead of turning
+ * them into Strings or Integers.
+ *
+ * @param <V> type of the values
+ */
+public class IntBST<V> {
+
+    /**
+     * Inner class for the nodes of the tree. Node fields are accessed directly,
+     * for simplicity of code.
+     */
+    private static class Node<V> {
+        int key;
+        V value;
+        Node<V> left;
+        Node<V> right;
+
+        Node(int key, V value) {
+            this.key = key;
+            this.value = value;
+        } // constructor
+    } // class Node
+
+    /** The entry point to the tree */
+    private Node<V> root;
+    /** Count of entries in the tree */
+    private int size;
+
+    /** Default constructor */
+    public IntBST() {
+        this.root = null;
+        this.size = 0;
+    } // default constructor
+
+    /**
+     * Associate a value with a key, replacing any value the key already had.
+     *
+     * @param key   key to insert
+     * @param value value to store
+     * @return the value previously associated with key, or null
+     */
+    public V put(int key, V value) {
+        V previous = null;
+        if (this.root == null) {
+            this.root = new Node<>(key, value);
+            this.size = 1;
+        } else {
+            Node<V> cursor = this.root;
+            Node<V> parent = null;
+            int comparison = 0;
+            while (cursor != null) {
+                parent = cursor;
+                comparison = Integer.compare(key, cursor.key);
+                if (comparison == 0) {
+                    // Existing key: swap the value and stop
+                    previous = cursor.value;
+                    cursor.value = value;
+                    cursor = null;
+                } else if (comparison < 0) {
+                    cursor = cursor.left;
+                } else {
+                    cursor = cursor.right;
+                }
+            }
+            if (comparison < 0) {
+                parent.left = new Node<>(key, value);
+                this.size++;
+            } else if (comparison > 0) {
+                parent.right = new Node<>(key, value);
+                this.size++;
+            }
+        }
+        return previous;
+    } // method put
+
+    /**
+     * Look up the value of a key.
+     *
+     * @param key key to look for
+     * @return the associated value, or null if the key is not in the tree
+     */
+    public V get(int key) {
+        Node<V> node = this.find(key);
+        V value = null;
+        if (node != null) {
+            value = node.value;
+        }
+        return value;
+    } // method get
+
+    /**
+     * Check whether a key is in the tree.
+     *
+     * @param key key to look for
+     * @return true if the key is in the tree
+     */
+    public boolean containsKey(int key) {
+        return this.find(key) != null;
+    } // method containsKey
+
+    /**
+     * Remove a key and its value.
+     *
+     * @param key key to remove
+     * @return the value that was associated with key, or null if it was absent
+     */
+    public V remove(int key) {
+        V removed = null;
+        Node<V> cursor = this.root;
+        Node<V> parent = null;
+        boolean found = false;
+        while (cursor != null && !found) {
+            found = key == cursor.key;
+            if (!found) {
+                parent = cursor;
+                if (key < cursor.key) {
+                    cursor = cursor.left;
+                } else {
+                    cursor = cursor.right;
+                }
+            }
+        }
+        if (found) {
+            removed = cursor.value;
+            if (cursor.left != null && cursor.right != null) {
+                // Two children: move the in-order successor's entry here and unlink
+                // the successor instead, which has at most a right child
+                Node<V> successorParent = cursor;
+                Node<V> successor = cursor.right;
+                while (successor.left != null) {
+                    successorParent = successor;
+                    successor = successor.left;
+                }
+                cursor.key = successor.key;
+                cursor.value = successor.value;
+                this.replaceChild(successorParent, successor, successor.right);
+            } else if (cursor.left != null) {
+                this.replaceChild(parent, cursor, cursor.left);
+            } else {
+                this.replaceChild(parent, cursor, cursor.right);
+            }
+            this.size--;
+        }
+        return removed;
+    } // method remove
+
+    /**
+     * The smallest key in the tree.
+     *
+     * @return the first key in order
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public int firstKey() {
+        if (this.root == null) {
+            throw new NoSuchElementException("The tree is empty");
+        }
+        Node<V> cursor = this.root;
+        while (cursor.left != null) {
+            cursor = cursor.left;
+        }
+        return cursor.key;
+    } // method firstKey
+
+    /**
+     * The largest key in the tree.
+     *
+     * @return the last key in order
+     * @throws NoSuchElementException if the tree is empty
+     */
+    public int lastKey() {
+        if (this.root == null) {
+            throw new NoSuchElementException("The tree is empty");
+        }
+        Node<V> cursor = this.root;
+        while (cursor.right != null) {
+            cursor = cursor.right;
+        }
+        return cursor.key;
+    } // method lastKey
+
+    /**
+     * The largest key less than or equal to a given key. The answer is a
+     * primitive, so a missing floor is reported the way firstKey reports an
+     * empty tree rather than with null.
+     *
+     * @param key bound to search from
+     * @return the floor key
+     * @throws NoSuchElementException if every key is greater than key
+     */
+    public int floorKey(int key) {
+        Node<V> floor = null;
+        Node<V> cursor = this.root;
+        while (cursor != null) {
+            if (key == cursor.key) {
+                floor = cursor;
+                cursor = null;
+            } else if (key < cursor.key) {
+                cursor = cursor.left;
+            } else {
+                // This key qualifies; a larger one may still be to the right
+                floor = cursor;
+                cursor = cursor.right;
+            }
+        }
+        if (floor == null) {
+            throw new NoSuchElementException("No key is less than or equal to " + key);
+        }
+        return floor.key;
+    } // method floorKey
+
+    /**
+     * The smallest key greater than or equal to a given key.
+     *
+     * @param key bound to search from
+     * @return the ceiling key
+     * @throws NoSuchElementException if every key is less than key
+     */
+    public int ceilingKey(int key) {
+        Node<V> ceiling = null;
+        Node<V> cursor = this.root;
+        while (cursor != null) {
+            if (key == cursor.key) {
+                ceiling = cursor;
+                cursor = null;
+            } else if (key > cursor.key) {
+                cursor = cursor.right;
+            } else {
+                // This key qualifies; a smaller one may still be to the left
+                ceiling = cursor;
+                cursor = cursor.left;
+            }
+        }
+        if (ceiling == null) {
+            throw new NoSuchElementException("No key is greater than or equal to " + key);
+        }
+        return ceiling.key;
+    } // method ceilingKey
+
+    /**
+     * The keys of the tree in order.
+     *
+     * @return a new array with every key, smallest first
+     */
+    public int[] keys() {
+        int[] keys = new int[this.size];
+        int index = 0;
+        ArrayList<Node<V>> stack = new ArrayList<>();
+        Node<V> cursor = this.root;
+        while (cursor != null || !stack.isEmpty()) {
+            if (cursor != null) {
+                stack.add(cursor);
+                cursor = cursor.left;
+            } else {
+                cursor = stack.remove(stack.size() - 1);
+                keys[index++] = cursor.key;
+                cursor = cursor.right;
+            }
+        }
+        return keys;
+    } // method keys
+
+    /**
+     * Walk down to the node holding a key.
+     *
+     * @param key key to look for
+     * @return the node, or null if the key is not in the tree
+     */
+    private Node<V> find(int key) {
+        Node<V> cursor = this.root;
+        while (cursor != null && cursor.key != key) {
+            if (key < cursor.key) {
+                cursor = cursor.left;
+            } else {
+                cursor = cursor.right;
+            }
+        }
+        return cursor;
+    } // helper method find
+
+    /**
+     * Point parent (or the root, when parent is null) at replacement instead of
+     * child.
+     *
+     * @param parent      parent of child, or null if child is the root
+     * @param child       child being replaced
+     * @param replacement new child, possibly null
+     */
+    private void replaceChild(Node<V> parent, Node<V> child, Node<V> replacement) {
+        if (parent == null) {
+            this.root = replacement;
+        } else if (parent.left == child) {
+            parent.left = replacement;
+        } else {
+            parent.right = replacement;
+        }
+    } // helper method replaceChild
+
+    /** Simple string representation: the keys in order */
+    @Override
+    public String toString() {
+        return Arrays.toString(this.keys());
+    } // method toString
+
+    /******************************* Accessors *******************************/
+
+    public int size() {
+        return this.size;
+    }
+
+    public boolean isEmpty() {
+        return this.size == 0;
+    }
+
+} // class IntBST
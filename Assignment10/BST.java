@@ -1,3 +1,9 @@
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.PriorityQueue;
+
 /**
  * A simple binary search tree
  */
@@ -9,19 +15,42 @@ public class BST {
     /** Longest and shortest words stored in the tree */
     private String longest;
     private String shortest;
+    /** Whether duplicates are counted (multiset) instead of dropped */
+    private final boolean counting;
+    /** Optional filter that rejects most misses before the tree is walked */
+    private BloomFilter filter;
+    /** Operation metrics, or null while metrics are disabled */
+    private BSTMetrics metrics;
+    /** Key comparisons made by the most recent search */
+    private int lastComparisons;
 
     // Constant for the message to display when the tree is empty
     private static final String EMPTY_TREE_MESSAGE = "The tree is empty.\n";
     // Constant for the default value when the longest or shortest word is null
     private static final String DEFAULT_WORD_VALUE = "None";
+    // Size of the buffer used when ingesting text from a Reader
+    private static final int INGEST_BUFFER_SIZE = 8192;
 
     /** Default constructor */
     public BST() {
+        this(false);
+    } // default constructor
+
+    /**
+     * Constructor that selects the duplicate policy. In counting mode every node
+     * keeps an occurrence count: adding an existing word increments it and
+     * removing a word decrements it, unlinking the node only when the count
+     * reaches zero. numberOfNodes keeps counting distinct words.
+     * 
+     * @param counting true to count duplicates, false to drop them
+     */
+    public BST(boolean counting) {
         this.root = null;
         this.numberOfNodes = 0;
         this.shortest = null;
         this.longest = null;
-    } // default constructor
+        this.counting = counting;
+    } // constructor
 
     /**
      * Overloaded add to take a string, wrap it into a TreeNode object, and invoke
@@ -36,22 +65,33 @@ public class BST {
 
     /**
      * Insert a new node into the tree; the method takes no action if a node with
-     * the same payload already exists in the tree.
+     * the same payload already exists in the tree, except in counting mode where
+     * the existing node's count is incremented.
      * 
      * @param newNode node to insert
      */
     public void add(TreeNode newNode) {
+        long start = 0;
+        int comparisons = 0;
+        boolean inserted = true;
+        if (this.metrics != null) {
+            start = System.nanoTime();
+        }
         if (this.root == null) {
             this.root = newNode;
             this.numberOfNodes = 1;
             this.shortest = newNode.getWord();
             this.longest = newNode.getWord();
+            if (this.filter != null) {
+                this.filter.add(newNode.getWord());
+            }
         } else {
             TreeNode cursor = this.root;
             TreeNode parent = null;
             boolean duplicate = false;
             while (cursor != null && !duplicate) {
                 parent = cursor;
+                comparisons++;
                 duplicate = newNode.compareTo(cursor) == 0;
                 if (newNode.compareTo(cursor) < 0) {
                     cursor = cursor.getLeft();
@@ -61,7 +101,11 @@ public class BST {
             }
             // The while loop ends when it finds a spot for the new node or when discovering
             // a duplicate entry. If there is a duplicate entry, there will be no insertion.
-            if (!duplicate) {
+            inserted = !duplicate;
+            if (duplicate && this.counting) {
+                // parent holds the node that matched the new word
+                parent.setCount(parent.getCount() + 1);
+            } else if (!duplicate) {
                 if (newNode.compareTo(parent) < 0) {
                     parent.setLeft(newNode);
                 } else {
@@ -69,6 +113,19 @@ public class BST {
                 }
                 // Update the number of nodes in the tree
                 this.numberOfNodes++;
+                if (this.filter != null) {
+                    this.filter.add(newNode.getWord());
+                }
+                // Every node on the path to the new leaf gained one descendant
+                cursor = this.root;
+                while (cursor != newNode) {
+                    cursor.setSize(cursor.getSize() + 1);
+                    if (newNode.compareTo(cursor) < 0) {
+                        cursor = cursor.getLeft();
+                    } else {
+                        cursor = cursor.getRight();
+                    }
+                }
                 // Check if new node contains a string longer than the longest string
                 if (newNode.getWord().length() > this.longest.length()) {
                     this.longest = newNode.getWord();
@@ -79,6 +136,14 @@ public class BST {
                 }
             }
         }
+        if (this.metrics != null) {
+            // A new leaf hangs below the last node compared; a duplicate is that node
+            int depth = comparisons;
+            if (!inserted) {
+                depth = comparisons - 1;
+            }
+            this.metrics.recordAdd(comparisons, depth, System.nanoTime() - start);
+        }
     } // method add
 
     /**
@@ -138,11 +203,38 @@ public class BST {
      * @return true if the target is found, false otherwise.
      */
     public boolean contains(String target) {
+        long start = 0;
+        if (this.metrics != null) {
+            start = System.nanoTime();
+        }
+        boolean resultFound = this.search(target);
+        if (this.metrics != null) {
+            this.metrics.recordLookup(this.lastComparisons, resultFound, System.nanoTime() - start);
+        }
+        return resultFound;
+    } // method contains
+
+    /**
+     * Walks the tree looking for target without recording metrics, so that
+     * remove can check for its target without counting a lookup. The number of
+     * nodes compared is left in lastComparisons.
+     *
+     * @param target The string to search for in the tree.
+     * @return true if the target is found, false otherwise.
+     */
+    private boolean search(String target) {
         boolean resultFound = false; // Flag to indicate whether the target is found
         TreeNode cursor = this.root; // Start traversal from the root
+        int comparisons = 0;
+
+        // A Bloom filter miss means the word is definitely absent; skip the walk
+        if (this.filter != null && !this.filter.mightContain(target)) {
+            cursor = null;
+        }
 
         // Traverse the tree to search for the target node.
         while (cursor != null && !resultFound) {
+            comparisons++;
             int comparison = target.compareTo(cursor.getWord()); // Compare target with current node's word
 
             if (comparison == 0) {
@@ -158,8 +250,9 @@ public class BST {
         }
 
         // Return whether the target was found
+        this.lastComparisons = comparisons;
         return resultFound;
-    } // method contains
+    } // helper method search
 
     /**
      * Returns a string representation of the Binary Search Tree (BST).
@@ -214,17 +307,32 @@ public class BST {
      */
     public TreeNode remove(String target, TreeNode belowNode) {
         TreeNode removed = null; // The node that will be removed
+        boolean unlinked = true; // False when only an occurrence count was decremented
+        long start = 0;
+        if (this.metrics != null) {
+            start = System.nanoTime();
+        }
 
-        // Check if the target exists in the tree or subtree using the contains method
-        if (contains(target)) {
+        // Check if the target exists in the tree or subtree; the search does not
+        // count as a lookup in the metrics
+        if (search(target)) {
             TreeNode current = belowNode; // Start from the given node for traversal
             TreeNode parent = getParentNode(current, this.root); // Get the parent node for tree modification
 
             // Traverse the tree to find the target node
             while (current != null) {
+                this.lastComparisons++;
                 int comparison = target.compareTo(current.getWord()); // Compare the target with the current node's word
 
-                if (comparison == 0) {
+                if (comparison == 0 && this.counting && current.getCount() > 1) {
+                    // In counting mode drop one occurrence and leave the node in place
+                    current.setCount(current.getCount() - 1);
+                    removed = current;
+                    unlinked = false;
+                    break;
+                } else if (comparison == 0) {
+                    // Every node from the root down to the target loses one descendant
+                    shrinkPathTo(target);
                     // Once the target node is found, decide how to remove it based on its children
                     int childrenCount = current.countChildren(); // Count how many children the node has
 
@@ -256,8 +364,12 @@ public class BST {
         }
 
         // If a node is removed, check if it was the longest or shortest word
-        if (removed != null) {
+        if (removed != null && unlinked) {
             numberOfNodes--; // Update numberOfNodes after removal of thre target node
+            if (this.filter != null) {
+                // The removed node may carry the successor's word, so use target
+                this.filter.remove(target);
+            }
             if (numberOfNodes == 0) {
                 // If the tree is empty after removal, reset the longest and shortest to default
                 // values
@@ -292,6 +404,9 @@ public class BST {
             }
         }
 
+        if (this.metrics != null) {
+            this.metrics.recordRemove(this.lastComparisons, removed != null, System.nanoTime() - start);
+        }
         return removed; // Return the removed node, or null if not found
     } // remove method
 
@@ -379,12 +494,14 @@ public class BST {
 
         // Traverse left until the leftmost node (in-order successor) is found
         while (successor.getLeft() != null) {
+            successor.setSize(successor.getSize() - 1); // The successor leaves this subtree
             successorParent = successor; // Move the parent pointer to the current node
             successor = successor.getLeft(); // Move left to find the smallest node
         }
 
         // Step 2: Copy the successor’s value to the node to be removed
         nodeToRemove.setWord(successor.getWord()); // Copy successor’s word to the node
+        nodeToRemove.setCount(successor.getCount()); // and its occurrence count
 
         // Step 3: Remove the successor from the tree
         if (successor.getRight() != null) {
@@ -396,6 +513,28 @@ public class BST {
         }
     } // helper method removeNodeWithTwoChild
 
+    /**
+     * Decrements the subtree size of every node on the path from the root to the
+     * node holding target, that node included. Called once a removal is certain,
+     * before the tree is restructured.
+     *
+     * @param target word whose node is about to be removed
+     */
+    private void shrinkPathTo(String target) {
+        TreeNode cursor = this.root;
+        boolean reached = false;
+        while (cursor != null && !reached) {
+            cursor.setSize(cursor.getSize() - 1);
+            int comparison = target.compareTo(cursor.getWord());
+            reached = comparison == 0;
+            if (comparison < 0) {
+                cursor = cursor.getLeft();
+            } else {
+                cursor = cursor.getRight();
+            }
+        }
+    } // helper method shrinkPathTo
+
     /**
      * Finds and returns the parent node of a given child node in the tree.
      * The search starts from the provided starting node (root or subtree).
@@ -463,6 +602,351 @@ public class BST {
         return node;
     } // helper method findRightmost
 
+    /**
+     * Size of a possibly empty subtree.
+     *
+     * @param node root of the subtree, or null
+     * @return number of nodes in the subtree
+     */
+    private static int sizeOf(TreeNode node) {
+        int size = 0;
+        if (node != null) {
+            size = node.getSize();
+        }
+        return size;
+    } // helper method sizeOf
+
+    /**
+     * Counts the words in the tree that precede target, or that precede or equal
+     * target, in a single root-to-leaf walk using the subtree sizes.
+     *
+     * @param target    word to rank
+     * @param inclusive whether a node equal to target is counted
+     * @return number of words less than (or equal to) target
+     */
+    private int rankOf(String target, boolean inclusive) {
+        int rank = 0;
+        TreeNode cursor = this.root;
+        while (cursor != null) {
+            int comparison = target.compareTo(cursor.getWord());
+            if (comparison < 0) {
+                cursor = cursor.getLeft();
+            } else if (comparison > 0) {
+                // The whole left subtree and the node itself precede target
+                rank += sizeOf(cursor.getLeft()) + 1;
+                cursor = cursor.getRight();
+            } else {
+                rank += sizeOf(cursor.getLeft());
+                if (inclusive) {
+                    rank++;
+                }
+                cursor = null;
+            }
+        }
+        return rank;
+    } // helper method rankOf
+
+    /**
+     * Counts the words in the tree that are smaller than target. The target
+     * itself does not have to be in the tree. Runs in O(height).
+     *
+     * @param target word to rank
+     * @return number of words strictly less than target, 0 if target is null
+     */
+    public int rank(String target) {
+        int rank = 0;
+        if (target != null) {
+            rank = this.rankOf(target, false);
+        }
+        return rank;
+    } // method rank
+
+    /**
+     * Finds the k-th smallest word in the tree, counting from 0, so that
+     * select(rank(w)) == w for every word w in the tree. Runs in O(height).
+     *
+     * @param k position of the word in sorted order, starting at 0
+     * @return the k-th word, or null if k is not between 0 and numberOfNodes - 1
+     */
+    public String select(int k) {
+        String selected = null;
+        TreeNode cursor = this.root;
+        if (k < 0 || k >= this.numberOfNodes) {
+            cursor = null;
+        }
+        while (cursor != null && selected == null) {
+            int leftSize = sizeOf(cursor.getLeft());
+            if (k < leftSize) {
+                cursor = cursor.getLeft();
+            } else if (k > leftSize) {
+                // Skip the left subtree and this node
+                k -= leftSize + 1;
+                cursor = cursor.getRight();
+            } else {
+                selected = cursor.getWord();
+            }
+        }
+        return selected;
+    } // method select
+
+    /**
+     * Counts the words w in the tree with from <= w <= to. Neither bound has to
+     * be in the tree. Runs in O(height).
+     *
+     * @param from lower bound, inclusive
+     * @param to   upper bound, inclusive
+     * @return number of words in the range, 0 if the range is empty or a bound
+     *         is null
+     */
+    public int countInRange(String from, String to) {
+        int count = 0;
+        if (from != null && to != null && from.compareTo(to) <= 0) {
+            count = this.rankOf(to, true) - this.rankOf(from, false);
+        }
+        return count;
+    } // method countInRange
+
+    /**
+     * Number of occurrences of target in the tree. Outside counting mode this is
+     * 1 for any word in the tree.
+     *
+     * @param target word to look up
+     * @return occurrences of target, 0 if it is not in the tree
+     */
+    public int count(String target) {
+        int occurrences = 0;
+        TreeNode cursor = this.root;
+        while (target != null && cursor != null) {
+            int comparison = target.compareTo(cursor.getWord());
+            if (comparison == 0) {
+                occurrences = cursor.getCount();
+                cursor = null;
+            } else if (comparison < 0) {
+                cursor = cursor.getLeft();
+            } else {
+                cursor = cursor.getRight();
+            }
+        }
+        return occurrences;
+    } // method count
+
+    /**
+     * Finds the k most frequent words in the tree. The tree is walked once in
+     * order while a min-heap keeps the best k nodes seen so far, so the cost is
+     * O(n log k). Words with equal counts are listed alphabetically.
+     *
+     * @param k number of words wanted
+     * @return up to k words, most frequent first
+     */
+    public String[] topK(int k) {
+        int wanted = Math.max(0, Math.min(k, this.numberOfNodes));
+        String[] top = new String[wanted];
+        if (wanted > 0) {
+            // Root of the heap is the weakest candidate: lowest count, then last word
+            PriorityQueue<TreeNode> best = new PriorityQueue<>(wanted, (a, b) -> {
+                int order = Integer.compare(a.getCount(), b.getCount());
+                if (order == 0) {
+                    order = b.getWord().compareTo(a.getWord());
+                }
+                return order;
+            });
+            ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+            TreeNode cursor = this.root;
+            while (cursor != null || !stack.isEmpty()) {
+                if (cursor != null) {
+                    stack.push(cursor);
+                    cursor = cursor.getLeft();
+                } else {
+                    cursor = stack.pop();
+                    if (best.size() < wanted) {
+                        best.add(cursor);
+                    } else if (cursor.getCount() > best.peek().getCount()) {
+                        // Strictly greater: on ties the alphabetically earlier word stays
+                        best.poll();
+                        best.add(cursor);
+                    }
+                    cursor = cursor.getRight();
+                }
+            }
+            for (int i = wanted - 1; i >= 0; i--) {
+                top[i] = best.poll().getWord();
+            }
+        }
+        return top;
+    } // method topK
+
+    /**
+     * Tokenizes text straight into the tree. Words are maximal runs of letters,
+     * digits and apostrophes; everything else separates them. The text is read
+     * through a fixed buffer and each word is added as soon as it ends, so no
+     * intermediate array of words is ever built. The reader is not closed.
+     *
+     * @param reader source of the text
+     * @throws IOException if reading fails
+     */
+    public void ingest(Reader reader) throws IOException {
+        char[] buffer = new char[INGEST_BUFFER_SIZE];
+        StringBuilder word = new StringBuilder();
+        int read = reader.read(buffer);
+        while (read != -1) {
+            for (int i = 0; i < read; i++) {
+                if (isWordChar(buffer[i])) {
+                    word.append(buffer[i]);
+                } else if (word.length() > 0) {
+                    this.add(word.toString());
+                    word.setLength(0);
+                }
+            }
+            read = reader.read(buffer);
+        }
+        // The text may end in the middle of a word
+        if (word.length() > 0) {
+            this.add(word.toString());
+        }
+    } // method ingest
+
+    /**
+     * Decides whether a character belongs to a word when ingesting text.
+     *
+     * @param c character to classify
+     * @return true for letters, digits and apostrophes
+     */
+    static boolean isWordChar(char c) {
+        return Character.isLetterOrDigit(c) || c == '\'';
+    } // method isWordChar
+
+    /**
+     * Replaces the contents of this tree with an already built one. Used by
+     * loaders that construct nodes directly (for example BSTStore.load); the
+     * caller guarantees that the nodes are ordered, that their sizes and counts
+     * are set, and that the statistics passed in match them.
+     *
+     * @param newRoot     root of the tree to adopt
+     * @param newCount    number of nodes under newRoot
+     * @param newLongest  longest word under newRoot
+     * @param newShortest shortest word under newRoot
+     */
+    void adopt(TreeNode newRoot, int newCount, String newLongest, String newShortest) {
+        this.root = newRoot;
+        this.numberOfNodes = newCount;
+        this.longest = newLongest;
+        this.shortest = newShortest;
+        this.rebuildBloomFilter();
+    } // method adopt
+
+    /**
+     * Starts recording operation metrics (comparisons, latency, hit ratio and
+     * insertion depth) and publishing them as JFR events. Enabling metrics on a
+     * tree that already records them starts over from zero.
+     */
+    public void enableMetrics() {
+        this.metrics = new BSTMetrics();
+    } // method enableMetrics
+
+    /** Stops recording operation metrics and drops the counters */
+    public void disableMetrics() {
+        this.metrics = null;
+    } // method disableMetrics
+
+    /**
+     * Takes a snapshot of the operation metrics. Besides copying the counters,
+     * this measures the current height and depth histogram of the tree, which
+     * costs one walk over all nodes.
+     *
+     * @return a snapshot independent of later operations, or null if metrics are
+     *         disabled
+     */
+    public BSTMetrics getMetrics() {
+        BSTMetrics snapshot = null;
+        if (this.metrics != null) {
+            int[] histogram = new int[this.numberOfNodes];
+            int height = -1;
+            ArrayDeque<TreeNode> nodes = new ArrayDeque<>();
+            ArrayDeque<Integer> depths = new ArrayDeque<>();
+            if (this.root != null) {
+                nodes.push(this.root);
+                depths.push(0);
+            }
+            while (!nodes.isEmpty()) {
+                TreeNode node = nodes.pop();
+                int depth = depths.pop();
+                histogram[depth]++;
+                height = Math.max(height, depth);
+                if (node.hasLeft()) {
+                    nodes.push(node.getLeft());
+                    depths.push(depth + 1);
+                }
+                if (node.hasRight()) {
+                    nodes.push(node.getRight());
+                    depths.push(depth + 1);
+                }
+            }
+            snapshot = this.metrics.snapshot(height, Arrays.copyOf(histogram, height + 1));
+        }
+        return snapshot;
+    } // method getMetrics
+
+    /**
+     * Puts a counting Bloom filter in front of contains, so that most lookups of
+     * absent words are answered after a few hash probes instead of a walk down
+     * the tree. The filter is filled with the words already in the tree and then
+     * kept up to date by add and remove.
+     *
+     * @param expectedEntries   number of distinct words the tree is expected to
+     *                          hold
+     * @param falsePositiveRate wanted false-positive rate at that size
+     */
+    public void enableBloomFilter(int expectedEntries, double falsePositiveRate) {
+        this.filter = new BloomFilter(expectedEntries, falsePositiveRate);
+        this.rebuildBloomFilter();
+    } // method enableBloomFilter
+
+    /** Removes the Bloom filter; contains walks the tree for every lookup again */
+    public void disableBloomFilter() {
+        this.filter = null;
+    } // method disableBloomFilter
+
+    /**
+     * Refills the Bloom filter from the words in the tree. Useful after many
+     * removes have left saturated counters behind, or after the tree grew well
+     * past the size the filter was configured for (in which case enabling a new,
+     * larger filter is the better option).
+     */
+    public void rebuildBloomFilter() {
+        if (this.filter != null) {
+            this.filter.clear();
+            ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+            if (this.root != null) {
+                stack.push(this.root);
+            }
+            while (!stack.isEmpty()) {
+                TreeNode node = stack.pop();
+                this.filter.add(node.getWord());
+                if (node.hasLeft()) {
+                    stack.push(node.getLeft());
+                }
+                if (node.hasRight()) {
+                    stack.push(node.getRight());
+                }
+            }
+        }
+    } // method rebuildBloomFilter
+
+    /**
+     * Estimated chance that a lookup of an absent word gets past the Bloom
+     * filter and has to walk the tree.
+     *
+     * @return current false-positive rate, or 1.0 when no filter is enabled since
+     *         then every miss walks the tree
+     */
+    public double getBloomFalsePositiveRate() {
+        double rate = 1.0;
+        if (this.filter != null) {
+            rate = this.filter.getFalsePositiveRate();
+        }
+        return rate;
+    } // method getBloomFalsePositiveRate
+
     /******************************* Accessors *******************************/
 
     public int getNumberOfNodes() {
@@ -481,4 +965,8 @@ public class BST {
         return shortest;
     }
 
+    public boolean isCounting() {
+        return this.counting;
+    }
+
 } // class BST
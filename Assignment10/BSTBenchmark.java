@@ -0,0 +1,418 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.LinkedHashSet;
+import java.util.Random;
+
+/**
+ * Workload suite for BST, meant to be re-run as the tree implementation
+ * changes so that regressions show up as numbers rather than impressions.
+ *
+ * For every key distribution and size it builds a tree, runs a mix of
+ * contains and add/remove operations against it, walks it in order, and
+ * removes every word again from a freshly built full tree, reporting time per
+ * operation, bytes allocated per operation and the number of garbage
+ * collections during the measurement. Each measurement is repeated after a
+ * few warm-up rounds so the JIT has settled.
+ *
+ * Options (all optional):
+ *
+ * <pre>
+ * --sizes 1000,10000,100000        number of words per tree
+ * --distributions random,sorted,reverse,zipf
+ * --reads 90                       percent of mixed operations that are lookups
+ * --ops 100000                     mixed operations per measurement
+ * --warmup 2 --iterations 5        rounds per measurement
+ * --maxDegenerate 20000            largest sorted/reverse tree to build
+ * </pre>
+ *
+ * Sorted and reverse-sorted input turns the tree into a linked list, so
+ * building it costs O(n^2); sizes above maxDegenerate are skipped for those
+ * distributions unless the limit is raised. Sizes up to 10^7 work for random and
+ * Zipf input given enough heap (-Xmx).
+ */
+public class BSTBenchmark {
+
+    // Seed for every random choice, so runs are reproducible
+    private static final long SEED = 271L;
+    // Exponent of the Zipf distribution
+    private static final double ZIPF_EXPONENT = 1.0;
+    // Percent scale for the read/write mix
+    private static final int PERCENT = 100;
+
+    /** Settings parsed from the command line */
+    private int[] sizes = { 1_000, 10_000, 100_000 };
+    private String[] distributions = { "random", "sorted", "reverse", "zipf" };
+    private int readPercent = 90;
+    private int operations = 100_000;
+    private int warmup = 2;
+    private int iterations = 5;
+    private int maxDegenerate = 20_000;
+
+    /** Results of every phase end up here, so the JIT cannot drop the work */
+    private static volatile long blackhole;
+
+    /** Allocation counter of the current thread, when the JVM offers one */
+    private final com.sun.management.ThreadMXBean threads;
+
+    /** Default constructor */
+    public BSTBenchmark() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+        } else {
+            this.threads = null;
+        }
+    } // default constructor
+
+    /**
+     * A workload is the sequence of words to build the tree from, plus the words
+     * the mixed phase looks up, adds and removes.
+     */
+    private static class Workload {
+        String[] build;
+        String[] mixed;
+    } // class Workload
+
+    /**
+     * Generate the words for one distribution and size. Sorted and reverse
+     * streams are random words put in order; Zipf streams draw from a vocabulary
+     * of size words with the probability of rank r proportional to 1/r^s, so a
+     * few words repeat very often.
+     *
+     * @param distribution random, sorted, reverse or zipf
+     * @param size         number of words in the build stream
+     * @param mixedOps     number of words in the mixed stream
+     * @return the workload
+     */
+    private static Workload generate(String distribution, int size, int mixedOps) {
+        Random random = new Random(SEED);
+        Workload workload = new Workload();
+        String[] vocabulary = new String[size];
+        for (int i = 0; i < size; i++) {
+            vocabulary[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+        }
+        workload.mixed = new String[mixedOps];
+        if (distribution.equals("zipf")) {
+            double[] cumulative = new double[size];
+            double total = 0.0;
+            for (int rank = 0; rank < size; rank++) {
+                total += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                cumulative[rank] = total;
+            }
+            workload.build = new String[size];
+            for (int i = 0; i < size; i++) {
+                workload.build[i] = vocabulary[zipfRank(cumulative, random.nextDouble() * total)];
+            }
+            for (int i = 0; i < mixedOps; i++) {
+                workload.mixed[i] = vocabulary[zipfRank(cumulative, random.nextDouble() * total)];
+            }
+        } else {
+            workload.build = vocabulary.clone();
+            if (distribution.equals("sorted") || distribution.equals("reverse")) {
+                Arrays.sort(workload.build);
+            }
+            if (distribution.equals("reverse")) {
+                for (int i = 0, j = size - 1; i < j; i++, j--) {
+                    String swap = workload.build[i];
+                    workload.build[i] = workload.build[j];
+                    workload.build[j] = swap;
+                }
+            }
+            // Half of the mixed words are in the tree, half are fresh
+            for (int i = 0; i < mixedOps; i++) {
+                if (random.nextBoolean()) {
+                    workload.mixed[i] = vocabulary[random.nextInt(size)];
+                } else {
+                    workload.mixed[i] = Long.toString(random.nextLong() & Long.MAX_VALUE, 36);
+                }
+            }
+        }
+        return workload;
+    } // method generate
+
+    /**
+     * Find the Zipf rank whose cumulative weight first reaches a target.
+     *
+     * @param cumulative running totals of the rank weights
+     * @param target     value between 0 and the total weight
+     * @return the rank
+     */
+    private static int zipfRank(double[] cumulative, double target) {
+        int position = Arrays.binarySearch(cumulative, target);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return Math.min(position, cumulative.length - 1);
+    } // method zipfRank
+
+    /** One kind of measured work */
+    private interface Phase {
+        /**
+         * Run the work once.
+         *
+         * @return a value derived from the work, so the JIT cannot skip it
+         */
+        long run();
+    } // interface Phase
+
+    /** Measured work that needs a freshly built tree for every run */
+    private interface TreePhase {
+        /**
+         * Run the work once.
+         *
+         * @param tree a tree built for this run only
+         * @return a value derived from the work, so the JIT cannot skip it
+         */
+        long run(BST tree);
+    } // interface TreePhase
+
+    /**
+     * Time a phase: run it warmup times, then iterations times while counting
+     * nanoseconds, allocated bytes and collections, and print one result row.
+     *
+     * @param label     distribution and size being measured
+     * @param name      name of the phase
+     * @param opsPerRun operations one run performs
+     * @param phase     the work
+     */
+    private void measure(String label, String name, long opsPerRun, Phase phase) {
+        long sink = 0;
+        for (int i = 0; i < this.warmup; i++) {
+            sink += phase.run();
+        }
+        long bytesBefore = this.allocatedBytes();
+        long gcBefore = collections();
+        long start = System.nanoTime();
+        for (int i = 0; i < this.iterations; i++) {
+            sink += phase.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = this.allocatedBytes() - bytesBefore;
+        long gcs = collections() - gcBefore;
+        blackhole = sink;
+        this.report(label, name, opsPerRun, nanos, bytes, gcs);
+    } // method measure
+
+    /**
+     * Time a phase that consumes its tree: before every run a new tree is built
+     * from words, outside the measured window, so only the phase itself is
+     * counted in the time, bytes and collections.
+     *
+     * @param label     distribution and size being measured
+     * @param name      name of the phase
+     * @param opsPerRun operations one run performs
+     * @param words     words to build each run's tree from
+     * @param phase     the work
+     */
+    private void measure(String label, String name, long opsPerRun, String[] words, TreePhase phase) {
+        long sink = 0;
+        for (int i = 0; i < this.warmup; i++) {
+            sink += phase.run(build(words));
+        }
+        long nanos = 0;
+        long bytes = 0;
+        long gcs = 0;
+        for (int i = 0; i < this.iterations; i++) {
+            BST tree = build(words);
+            long bytesBefore = this.allocatedBytes();
+            long gcBefore = collections();
+            long start = System.nanoTime();
+            sink += phase.run(tree);
+            nanos += System.nanoTime() - start;
+            bytes += this.allocatedBytes() - bytesBefore;
+            gcs += collections() - gcBefore;
+        }
+        blackhole = sink;
+        this.report(label, name, opsPerRun, nanos, bytes, gcs);
+    } // method measure
+
+    /**
+     * Print one result row.
+     *
+     * @param label     distribution and size measured
+     * @param name      name of the phase
+     * @param opsPerRun operations one run performs
+     * @param nanos     time over all measured runs
+     * @param bytes     bytes allocated over all measured runs
+     * @param gcs       collections during the measured runs
+     */
+    private void report(String label, String name, long opsPerRun, long nanos, long bytes, long gcs) {
+        double ops = (double) opsPerRun * this.iterations;
+        System.out.printf("%-18s %-10s %12.1f %12.1f %6d%n", label, name, nanos / ops, bytes / ops, gcs);
+    } // method report
+
+    /**
+     * Bytes allocated so far by the current thread.
+     *
+     * @return the counter, or 0 if the JVM does not offer one
+     */
+    private long allocatedBytes() {
+        long bytes = 0;
+        if (this.threads != null) {
+            bytes = this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return bytes;
+    } // method allocatedBytes
+
+    /**
+     * Collections run so far by all collectors.
+     *
+     * @return total collection count
+     */
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    } // method collections
+
+    /**
+     * Build a tree from a word stream.
+     *
+     * @param words words to add
+     * @return the tree
+     */
+    private static BST build(String[] words) {
+        BST tree = new BST();
+        for (String word : words) {
+            tree.add(word);
+        }
+        return tree;
+    } // method build
+
+    /**
+     * Walk a tree in order without printing, counting characters visited.
+     *
+     * @param tree tree to walk
+     * @return total length of the words
+     */
+    private static long walk(BST tree) {
+        long characters = 0;
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        TreeNode cursor = tree.getRoot();
+        while (cursor != null || !stack.isEmpty()) {
+            if (cursor != null) {
+                stack.push(cursor);
+                cursor = cursor.getLeft();
+            } else {
+                cursor = stack.pop();
+                characters += cursor.getWord().length();
+                cursor = cursor.getRight();
+            }
+        }
+        return characters;
+    } // method walk
+
+    /** Run every configured distribution and size */
+    public void run() {
+        System.out.printf("%-18s %-10s %12s %12s %6s%n", "Workload", "Phase", "ns/op", "bytes/op", "GCs");
+        for (String distribution : this.distributions) {
+            for (int size : this.sizes) {
+                String label = distribution + "/" + size;
+                boolean degenerate = distribution.equals("sorted") || distribution.equals("reverse");
+                if (degenerate && size > this.maxDegenerate) {
+                    System.out.printf("%-18s skipped: builds a list in O(n^2), see --maxDegenerate%n", label);
+                } else {
+                    this.runWorkload(label, generate(distribution, size, this.operations));
+                }
+            }
+        }
+    } // method run
+
+    /**
+     * Measure every phase of one workload.
+     *
+     * @param label    distribution and size
+     * @param workload the words
+     */
+    private void runWorkload(String label, Workload workload) {
+        this.measure(label, "add", workload.build.length, () -> build(workload.build).getNumberOfNodes());
+        BST tree = build(workload.build);
+        this.measure(label, "contains", workload.mixed.length, () -> {
+            long found = 0;
+            for (String word : workload.mixed) {
+                if (tree.contains(word)) {
+                    found++;
+                }
+            }
+            return found;
+        });
+        // The mix replaces writes with an add followed by a remove of the same
+        // word, so the tree keeps its size from one run to the next
+        this.measure(label, "mixed", workload.mixed.length, () -> {
+            long found = 0;
+            for (int i = 0; i < workload.mixed.length; i++) {
+                String word = workload.mixed[i];
+                if (i % PERCENT < this.readPercent) {
+                    found += tree.contains(word) ? 1 : 0;
+                } else if (!tree.contains(word)) {
+                    tree.add(word);
+                    tree.remove(word);
+                }
+            }
+            return found;
+        });
+        this.measure(label, "traverse", tree.getNumberOfNodes(), () -> walk(tree));
+        // Empty a full-size tree in the order its words were first added; on
+        // random input most early removals hit nodes with two children and go
+        // through the successor, while sorted and reverse input always remove
+        // the root. Repeated words are removed once, as BST reports a miss
+        String[] distinct = new LinkedHashSet<>(Arrays.asList(workload.build)).toArray(new String[0]);
+        this.measure(label, "remove", distinct.length, workload.build, fresh -> {
+            long removed = 0;
+            for (String word : distinct) {
+                if (fresh.remove(word) != null) {
+                    removed++;
+                }
+            }
+            return removed;
+        });
+    } // method runWorkload
+
+    /**
+     * Read the options given on the command line.
+     *
+     * @param args options as described in the class comment
+     */
+    private void configure(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--sizes":
+                    this.sizes = Arrays.stream(value.split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "--distributions":
+                    this.distributions = value.split(",");
+                    break;
+                case "--reads":
+                    this.readPercent = Integer.parseInt(value);
+                    break;
+                case "--ops":
+                    this.operations = Integer.parseInt(value);
+                    break;
+                case "--warmup":
+                    this.warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    this.iterations = Integer.parseInt(value);
+                    break;
+                case "--maxDegenerate":
+                    this.maxDegenerate = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    } // method configure
+
+    /** Driver code */
+    public static void main(String[] args) {
+        BSTBenchmark benchmark = new BSTBenchmark();
+        benchmark.configure(args);
+        benchmark.run();
+    } // method main
+
+} // class BSTBenchmark
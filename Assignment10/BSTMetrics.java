@@ -0,0 +1,213 @@
+/**
+ * Operation counters for a BST, used to tell whether a tree is degenerating
+ * before its lookups go linear. A BST only records metrics after
+ * enableMetrics() is called; until then it does no extra work beyond one null
+ * check per operation.
+ *
+ * The live counters are updated by the tree as it works. BST.getMetrics hands
+ * out a copy (a snapshot) that also carries the tree's current height and the
+ * number of nodes at every depth, which are measured when the snapshot is taken.
+ *
+ * Comparisons are counted as the number of nodes whose word was compared with
+ * the key, i.e. the length of the search path.
+ */
+public class BSTMetrics {
+
+    /** Operations recorded so far */
+    private long adds;
+    private long lookups;
+    private long removes;
+    /** Key comparisons made by each kind of operation */
+    private long addComparisons;
+    private long lookupComparisons;
+    private long removeComparisons;
+    /** Time spent in each kind of operation, in nanoseconds */
+    private long addNanos;
+    private long lookupNanos;
+    private long removeNanos;
+    /** Lookups that found and did not find their word */
+    private long hits;
+    private long misses;
+    /** Deepest depth any node was inserted at since metrics were enabled */
+    private int maxDepth;
+    /** Height of the tree and nodes per depth; only set on snapshots */
+    private int height;
+    private int[] depthHistogram;
+
+    /** Default constructor: all counters start at zero */
+    public BSTMetrics() {
+        this.height = -1;
+        this.depthHistogram = new int[0];
+    } // default constructor
+
+    /**
+     * Record one add.
+     *
+     * @param comparisons key comparisons made
+     * @param depth       depth of the new node, or of the existing duplicate
+     * @param nanos       time spent
+     */
+    void recordAdd(int comparisons, int depth, long nanos) {
+        this.adds++;
+        this.addComparisons += comparisons;
+        this.addNanos += nanos;
+        this.maxDepth = Math.max(this.maxDepth, depth);
+        BSTOperationEvent.emit(BSTOperationEvent.ADD, comparisons, true, depth, nanos);
+    } // method recordAdd
+
+    /**
+     * Record one contains.
+     *
+     * @param comparisons key comparisons made
+     * @param hit         whether the word was found
+     * @param nanos       time spent
+     */
+    void recordLookup(int comparisons, boolean hit, long nanos) {
+        this.lookups++;
+        this.lookupComparisons += comparisons;
+        this.lookupNanos += nanos;
+        if (hit) {
+            this.hits++;
+        } else {
+            this.misses++;
+        }
+        BSTOperationEvent.emit(BSTOperationEvent.CONTAINS, comparisons, hit, comparisons - 1, nanos);
+    } // method recordLookup
+
+    /**
+     * Record one remove.
+     *
+     * @param comparisons key comparisons made
+     * @param hit         whether the word was in the tree
+     * @param nanos       time spent
+     */
+    void recordRemove(int comparisons, boolean hit, long nanos) {
+        this.removes++;
+        this.removeComparisons += comparisons;
+        this.removeNanos += nanos;
+        BSTOperationEvent.emit(BSTOperationEvent.REMOVE, comparisons, hit, -1, nanos);
+    } // method recordRemove
+
+    /**
+     * Copy the counters and attach the shape of the tree as measured now.
+     *
+     * @param height         current height of the tree, -1 when empty
+     * @param depthHistogram number of nodes at each depth, the root at depth 0
+     * @return an independent snapshot
+     */
+    BSTMetrics snapshot(int height, int[] depthHistogram) {
+        BSTMetrics copy = new BSTMetrics();
+        copy.adds = this.adds;
+        copy.lookups = this.lookups;
+        copy.removes = this.removes;
+        copy.addComparisons = this.addComparisons;
+        copy.lookupComparisons = this.lookupComparisons;
+        copy.removeComparisons = this.removeComparisons;
+        copy.addNanos = this.addNanos;
+        copy.lookupNanos = this.lookupNanos;
+        copy.removeNanos = this.removeNanos;
+        copy.hits = this.hits;
+        copy.misses = this.misses;
+        copy.maxDepth = this.maxDepth;
+        copy.height = height;
+        copy.depthHistogram = depthHistogram.clone();
+        return copy;
+    } // method snapshot
+
+    /**
+     * Average of a total over a number of operations.
+     *
+     * @param total      summed quantity
+     * @param operations number of operations
+     * @return the average, 0 when there were no operations
+     */
+    private static double average(long total, long operations) {
+        double result = 0.0;
+        if (operations > 0) {
+            result = (double) total / operations;
+        }
+        return result;
+    } // method average
+
+    /**
+     * A short report of the counters, one line per kind of operation.
+     *
+     * @return the report
+     */
+    @Override
+    public String toString() {
+        String result = "BST metrics:\n";
+        result += String.format("add:      %d ops, %.2f comparisons/op, %.0f ns/op%n", this.adds,
+                average(this.addComparisons, this.adds), average(this.addNanos, this.adds));
+        result += String.format("contains: %d ops, %.2f comparisons/op, %.0f ns/op, hit ratio %.3f%n",
+                this.lookups, average(this.lookupComparisons, this.lookups),
+                average(this.lookupNanos, this.lookups), this.getHitRatio());
+        result += String.format("remove:   %d ops, %.2f comparisons/op, %.0f ns/op%n", this.removes,
+                average(this.removeComparisons, this.removes), average(this.removeNanos, this.removes));
+        result += "Height: " + this.height + " (max insertion depth " + this.maxDepth + ")\n";
+        return result;
+    } // method toString
+
+    /******************************* Accessors *******************************/
+
+    public long getAdds() {
+        return this.adds;
+    }
+
+    public long getLookups() {
+        return this.lookups;
+    }
+
+    public long getRemoves() {
+        return this.removes;
+    }
+
+    public double getComparisonsPerAdd() {
+        return average(this.addComparisons, this.adds);
+    }
+
+    public double getComparisonsPerLookup() {
+        return average(this.lookupComparisons, this.lookups);
+    }
+
+    public double getComparisonsPerRemove() {
+        return average(this.removeComparisons, this.removes);
+    }
+
+    public double getNanosPerAdd() {
+        return average(this.addNanos, this.adds);
+    }
+
+    public double getNanosPerLookup() {
+        return average(this.lookupNanos, this.lookups);
+    }
+
+    public double getNanosPerRemove() {
+        return average(this.removeNanos, this.removes);
+    }
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public double getHitRatio() {
+        return average(this.hits, this.lookups);
+    }
+
+    public int getMaxDepth() {
+        return this.maxDepth;
+    }
+
+    public int getHeight() {
+        return this.height;
+    }
+
+    public int[] getDepthHistogram() {
+        return this.depthHistogram.clone();
+    }
+
+} // class BSTMetrics
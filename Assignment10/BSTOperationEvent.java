@@ -0,0 +1,64 @@
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.Timespan;
+
+/**
+ * Java Flight Recorder event describing one BST operation. Events are only
+ * created for trees with metrics enabled, and only committed while a recording
+ * has this event turned on, so a tree pays nothing for them otherwise.
+ */
+@Name("comp271.BSTOperation")
+@Label("BST Operation")
+@Category("COMP271")
+@Description("An add, contains or remove on a binary search tree")
+public class BSTOperationEvent extends Event {
+
+    // Names of the operations, as they appear in recordings
+    static final String ADD = "add";
+    static final String CONTAINS = "contains";
+    static final String REMOVE = "remove";
+
+    @Label("Operation")
+    String operation;
+
+    @Label("Comparisons")
+    @Description("Nodes compared with the key")
+    int comparisons;
+
+    @Label("Hit")
+    @Description("Whether the word was found (always true for add)")
+    boolean hit;
+
+    @Label("Depth")
+    @Description("Depth of the node reached, or -1 when not known")
+    int depth;
+
+    @Label("Latency")
+    @Timespan(Timespan.NANOSECONDS)
+    long latency;
+
+    /**
+     * Commit an event for one operation if recordings want it.
+     *
+     * @param operation   ADD, CONTAINS or REMOVE
+     * @param comparisons key comparisons made
+     * @param hit         whether the word was found
+     * @param depth       depth of the node reached, or -1
+     * @param latency     time spent, in nanoseconds
+     */
+    static void emit(String operation, int comparisons, boolean hit, int depth, long latency) {
+        BSTOperationEvent event = new BSTOperationEvent();
+        if (event.isEnabled()) {
+            event.operation = operation;
+            event.comparisons = comparisons;
+            event.hit = hit;
+            event.depth = depth;
+            event.latency = latency;
+            event.commit();
+        }
+    } // method emit
+
+} // class BSTOperationEvent
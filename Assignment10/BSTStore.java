@@ -0,0 +1,220 @@
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+
+/**
+ * Saves a BST to a compact binary file and loads it back, so that a dictionary
+ * does not have to be rebuilt word by word on every start.
+ *
+ * The words are written in sorted order. Because of that a loader can rebuild
+ * a perfectly balanced tree in one linear pass over the file, and a reader can
+ * binary-search the file directly (see MappedWordSet) without building any
+ * TreeNodes at all. All numbers are big-endian. The layout is
+ * 
+ * <pre>
+ * int    MAGIC
+ * int    flags          (bit 0: the tree counts duplicates)
+ * int    n              number of words
+ * int[n] offsets        start of each record, relative to the first record
+ * n records, each:
+ *   int     length      number of chars in the word
+ *   char[]  word        UTF-16 code units, so comparisons match String.compareTo
+ *   int     count       occurrence count of the word
+ * </pre>
+ * 
+ * A file is mapped as a single buffer, so it has to be smaller than 2 GB.
+ */
+public class BSTStore {
+
+    /** Identifies a BSTStore file ("BST1") */
+    static final int MAGIC = 0x42535431;
+    /** Flag bit set when the saved tree counts duplicates */
+    static final int FLAG_COUNTING = 1;
+    /** Size of the fixed header: magic, flags and word count */
+    static final int HEADER_BYTES = 3 * Integer.BYTES;
+    /** Bytes a record needs besides its characters: length and count */
+    static final int RECORD_OVERHEAD = 2 * Integer.BYTES;
+
+    /** Utility class, not meant to be instantiated */
+    private BSTStore() {
+    } // private constructor
+
+    /**
+     * Writes the words of a tree, in order, to a file.
+     *
+     * @param tree tree to save
+     * @param file destination; replaced if it exists
+     * @throws IOException if the file cannot be written or would be too large to
+     *                     map back
+     */
+    public static void write(BST tree, Path file) throws IOException {
+        int n = tree.getNumberOfNodes();
+        // First pass: lay out the records so the offset table can precede them
+        long position = 0;
+        int[] offsets = new int[n];
+        int index = 0;
+        ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+        TreeNode cursor = tree.getRoot();
+        while (cursor != null || !stack.isEmpty()) {
+            if (cursor != null) {
+                stack.push(cursor);
+                cursor = cursor.getLeft();
+            } else {
+                cursor = stack.pop();
+                offsets[index++] = (int) position;
+                position += RECORD_OVERHEAD + (long) Character.BYTES * cursor.getWord().length();
+                if (HEADER_BYTES + (long) Integer.BYTES * n + position > Integer.MAX_VALUE) {
+                    throw new IOException("Tree is too large for a single mapped file");
+                }
+                cursor = cursor.getRight();
+            }
+        }
+        // Second pass: the records themselves
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)))) {
+            out.writeInt(MAGIC);
+            out.writeInt(tree.isCounting() ? FLAG_COUNTING : 0);
+            out.writeInt(n);
+            for (int offset : offsets) {
+                out.writeInt(offset);
+            }
+            cursor = tree.getRoot();
+            while (cursor != null || !stack.isEmpty()) {
+                if (cursor != null) {
+                    stack.push(cursor);
+                    cursor = cursor.getLeft();
+                } else {
+                    cursor = stack.pop();
+                    out.writeInt(cursor.getWord().length());
+                    out.writeChars(cursor.getWord());
+                    out.writeInt(cursor.getCount());
+                    cursor = cursor.getRight();
+                }
+            }
+        }
+    } // method write
+
+    /**
+     * Memory-maps a file written by write and rebuilds the tree from it. The
+     * records are consumed in one sequential pass and arranged into a balanced
+     * tree, so the result is usually shallower than the tree that was saved.
+     *
+     * @param file file to load
+     * @return a new BST holding the saved words
+     * @throws IOException if the file cannot be read or is not a BSTStore file
+     */
+    public static BST load(Path file) throws IOException {
+        ByteBuffer buffer = map(file);
+        boolean counting = (buffer.getInt(Integer.BYTES) & FLAG_COUNTING) != 0;
+        int n = buffer.getInt(2 * Integer.BYTES);
+        // Skip straight to the records; the offset table is only needed for lookups
+        buffer.position(HEADER_BYTES + Integer.BYTES * n);
+        Loader loader = new Loader(buffer);
+        TreeNode root = loader.build(n);
+        BST tree = new BST(counting);
+        tree.adopt(root, n, loader.longest, loader.shortest);
+        return tree;
+    } // method load
+
+    /**
+     * Memory-maps a file written by write for lookups served straight from the
+     * file, without building a tree.
+     *
+     * @param file file to open
+     * @return a read-only word set backed by the mapped file
+     * @throws IOException if the file cannot be read or is not a BSTStore file
+     */
+    public static MappedWordSet open(Path file) throws IOException {
+        return new MappedWordSet(map(file));
+    } // method open
+
+    /**
+     * Maps a whole file read-only and checks its header.
+     *
+     * @param file file to map
+     * @return buffer over the file, positioned at 0
+     * @throws IOException if the file cannot be mapped or is not a BSTStore file
+     */
+    private static ByteBuffer map(Path file) throws IOException {
+        MappedByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException("File is too large to map: " + file);
+            }
+            buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a BST store file: " + file);
+        }
+        return buffer;
+    } // method map
+
+    /**
+     * Builds a balanced tree from records read in sorted order. Building the left
+     * subtree first, then the node, then the right subtree consumes the records
+     * exactly in the order they are stored.
+     */
+    private static class Loader {
+        /** Buffer positioned at the next record to read */
+        private final ByteBuffer buffer;
+        /** Scratch space for the characters of a word */
+        private char[] chars = new char[16];
+        /** Longest and shortest words seen so far */
+        private String longest;
+        private String shortest;
+
+        Loader(ByteBuffer buffer) {
+            this.buffer = buffer;
+        } // constructor
+
+        /**
+         * Build a balanced subtree out of the next count records.
+         *
+         * @param count number of records in the subtree
+         * @return root of the subtree, null if count is 0
+         */
+        TreeNode build(int count) {
+            TreeNode node = null;
+            if (count > 0) {
+                int leftCount = count / 2;
+                TreeNode left = this.build(leftCount);
+                node = new TreeNode(this.readWord());
+                node.setCount(this.buffer.getInt());
+                node.setLeft(left);
+                node.setRight(this.build(count - leftCount - 1));
+                node.setSize(count);
+            }
+            return node;
+        } // method build
+
+        /**
+         * Read the next word and track the longest and shortest seen.
+         *
+         * @return the word
+         */
+        private String readWord() {
+            int length = this.buffer.getInt();
+            if (length > this.chars.length) {
+                this.chars = new char[Math.max(length, 2 * this.chars.length)];
+            }
+            for (int i = 0; i < length; i++) {
+                this.chars[i] = this.buffer.getChar();
+            }
+            String word = new String(this.chars, 0, length);
+            if (this.longest == null || length > this.longest.length()) {
+                this.longest = word;
+            }
+            if (this.shortest == null || length < this.shortest.length()) {
+                this.shortest = word;
+            }
+            return word;
+        } // method readWord
+    } // class Loader
+
+} // class BSTStore
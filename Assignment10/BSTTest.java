@@ -80,5 +80,108 @@ public class BSTTest {
         // Final state of the tree
         System.out.println("Final tree state:");
         System.out.println(tree.toString());
+
+        // Order statistics: rank, select and range counts over the sorted words
+        System.out.println("Adding 'apple', 'kiwi', 'banana', 'cherry' for order statistics.");
+        tree.add("apple");
+        tree.add("kiwi");
+        tree.add("banana");
+        tree.add("cherry");
+        System.out.println("Rank of 'cherry': " + tree.rank("cherry")); // Should return 2
+        System.out.println("Word at position 0: " + tree.select(0)); // Should return apple
+        System.out.println("Word at position 3: " + tree.select(3)); // Should return date
+        System.out.println("Words from 'b' to 'd': " + tree.countInRange("b", "d")); // Should return 2
+        tree.remove("banana");
+        System.out.println("Rank of 'cherry' after removing 'banana': " + tree.rank("cherry")); // Should return 1
+
+        // Counting mode keeps occurrence counts instead of dropping duplicates
+        System.out.println("Ingesting a sentence into a counting tree.");
+        BST counts = new BST(true);
+        try {
+            counts.ingest(new java.io.StringReader("the cat and the dog and the bird"));
+        } catch (java.io.IOException e) {
+            System.out.println("Could not ingest text: " + e.getMessage());
+        }
+        System.out.println("Count of 'the': " + counts.count("the")); // Should return 3
+        System.out.println("Top 2 words: " + String.join(", ", counts.topK(2))); // Should return the, and
+        counts.remove("the");
+        System.out.println("Count of 'the' after one removal: " + counts.count("the")); // Should return 2
+        System.out.println(counts.toString());
+
+        // A Bloom filter in front of contains rejects most misses without a tree walk
+        System.out.println("Enabling a Bloom filter on the counting tree.");
+        counts.enableBloomFilter(100, 0.01);
+        System.out.println("Contains 'dog': " + counts.contains("dog")); // Should return true
+        System.out.println("Contains 'zebra': " + counts.contains("zebra")); // Should return false
+        counts.remove("dog");
+        System.out.println("Contains 'dog' after removal: " + counts.contains("dog")); // Should return false
+        System.out.printf("Bloom filter false-positive rate: %.6f%n", counts.getBloomFalsePositiveRate());
+
+        // Save the counting tree to disk, load it back and query the mapped file
+        System.out.println("Saving and reloading the counting tree.");
+        try {
+            java.nio.file.Path file = java.nio.file.Files.createTempFile("bst", ".bin");
+            BSTStore.write(counts, file);
+            BST reloaded = BSTStore.load(file);
+            MappedWordSet mapped = BSTStore.open(file);
+            System.out.println("Reloaded count of 'the': " + reloaded.count("the")); // Should return 2
+            System.out.println("Mapped contains 'cat': " + mapped.contains("cat")); // Should return true
+            System.out.println("Mapped contains 'dog': " + mapped.contains("dog")); // Should return false
+            System.out.println(reloaded.toString());
+            java.nio.file.Files.delete(file);
+        } catch (java.io.IOException e) {
+            System.out.println("Could not save or load the tree: " + e.getMessage());
+        }
+
+        // The pooled tree keeps its nodes in arrays but offers the same API
+        System.out.println("Adding 'oak', 'elm', 'birch', 'maple' to a pooled tree.");
+        PooledBST pooled = new PooledBST();
+        pooled.add("oak");
+        pooled.add("elm");
+        pooled.add("birch");
+        pooled.add("maple");
+        pooled.remove("oak");
+        System.out.println("Pooled contains 'oak': " + pooled.contains("oak")); // Should return false
+        System.out.println("Pooled contains 'birch': " + pooled.contains("birch")); // Should return true
+        System.out.println(pooled.toString());
+
+        // The radix tree shares common prefixes and answers prefix queries
+        System.out.println("Adding 'car', 'cart', 'carbon', 'dog' to a radix tree.");
+        RadixTree radix = new RadixTree();
+        radix.add("car");
+        radix.add("cart");
+        radix.add("carbon");
+        radix.add("dog");
+        System.out.println("Radix contains 'cart': " + radix.contains("cart")); // Should return true
+        System.out.println("Radix contains 'ca': " + radix.contains("ca")); // Should return false
+        System.out.println("Words starting with 'car': " + radix.withPrefix("car")); // Should return [car, carbon, cart]
+        radix.remove("car");
+        System.out.println("Words starting with 'car' after removing 'car': " + radix.withPrefix("car"));
+        System.out.println(radix.toString());
+
+        // Metrics report comparisons, hit ratio and the shape of the tree
+        System.out.println("Recording metrics while adding sorted words.");
+        BST measured = new BST();
+        measured.enableMetrics();
+        for (String word : new String[] { "a", "b", "c", "d", "e" }) {
+            measured.add(word);
+        }
+        measured.contains("e");
+        measured.contains("z");
+        BSTMetrics metrics = measured.getMetrics();
+        System.out.println("Height: " + metrics.getHeight()); // Should return 4, the tree is a list
+        System.out.println("Hit ratio: " + metrics.getHitRatio()); // Should return 0.5
+        System.out.print(metrics.toString());
+
+        // Persistent versions share untouched nodes and never change once published
+        System.out.println("Building persistent versions from 'mango', 'lime', 'pear'.");
+        PersistentBST v1 = PersistentBST.empty().add("mango").add("lime").add("pear");
+        PersistentBST snapshot = v1.snapshot();
+        PersistentBST v2 = v1.remove("mango").add("plum");
+        System.out.println("Snapshot contains 'mango': " + snapshot.contains("mango")); // Should return true
+        System.out.println("Snapshot contains 'plum': " + snapshot.contains("plum")); // Should return false
+        System.out.println("New version contains 'mango': " + v2.contains("mango")); // Should return false
+        System.out.println("New version contains 'plum': " + v2.contains("plum")); // Should return true
+        System.out.println(v2.toString());
     }
 }
@@ -0,0 +1,174 @@
+import java.util.Arrays;
+
+/**
+ * A counting Bloom filter for strings. It answers "definitely absent" or
+ * "possibly present" using a handful of hash probes, which lets a BST reject
+ * most misses without walking the tree.
+ *
+ * Each slot is a small counter instead of a single bit, so words can be
+ * removed as well as added. Counters are unsigned bytes; a counter that reaches
+ * its maximum sticks there (it is never decremented again), which can only make
+ * the filter answer "possibly present" more often, never less.
+ *
+ * The filter is sized from the number of entries it is expected to hold and
+ * the false-positive rate wanted at that load, using the usual formulas
+ *
+ * slots = -n ln(p) / (ln 2)^2 and probes = (slots / n) ln 2
+ *
+ */
+public class BloomFilter {
+
+    /** One counter per slot, read as an unsigned byte */
+    private final byte[] counters;
+    /** Number of probes per word */
+    private final int probes;
+    /** Number of counters that are not zero */
+    private int occupied;
+    /** Number of words currently in the filter */
+    private int entries;
+
+    // Largest value an unsigned byte counter can hold
+    private static final int SATURATED = 0xFF;
+    // Smallest table we are willing to build
+    private static final int MIN_SLOTS = 64;
+    // FNV-1a 64-bit offset basis and prime, used to hash the characters of a word
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+
+    /**
+     * Build an empty filter for the given load.
+     *
+     * @param expectedEntries   number of words the filter is expected to hold
+     * @param falsePositiveRate wanted false-positive rate at that load, between 0
+     *                          and 1 exclusive
+     */
+    public BloomFilter(int expectedEntries, double falsePositiveRate) {
+        if (expectedEntries <= 0) {
+            throw new IllegalArgumentException("Expected entries must be positive: " + expectedEntries);
+        }
+        if (!(falsePositiveRate > 0.0 && falsePositiveRate < 1.0)) {
+            throw new IllegalArgumentException("False-positive rate must be in (0, 1): " + falsePositiveRate);
+        }
+        double ln2 = Math.log(2);
+        long slots = (long) Math.ceil(-expectedEntries * Math.log(falsePositiveRate) / (ln2 * ln2));
+        slots = Math.max(MIN_SLOTS, Math.min(slots, Integer.MAX_VALUE - 8));
+        this.counters = new byte[(int) slots];
+        this.probes = Math.max(1, (int) Math.round((double) slots / expectedEntries * ln2));
+        this.occupied = 0;
+        this.entries = 0;
+    } // constructor
+
+    /**
+     * Record a word in the filter.
+     *
+     * @param word word to add
+     */
+    public void add(String word) {
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < this.probes; i++) {
+            int slot = Math.floorMod(h1 + i * h2, this.counters.length);
+            int value = this.counters[slot] & SATURATED;
+            if (value == 0) {
+                this.occupied++;
+            }
+            if (value < SATURATED) {
+                this.counters[slot] = (byte) (value + 1);
+            }
+        }
+        this.entries++;
+    } // method add
+
+    /**
+     * Forget a word previously added. Removing a word that was never added
+     * corrupts the filter, so callers must only remove words they know are in it.
+     *
+     * @param word word to remove
+     */
+    public void remove(String word) {
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        for (int i = 0; i < this.probes; i++) {
+            int slot = Math.floorMod(h1 + i * h2, this.counters.length);
+            int value = this.counters[slot] & SATURATED;
+            // Saturated counters have lost track of how many words they hold
+            if (value > 0 && value < SATURATED) {
+                this.counters[slot] = (byte) (value - 1);
+                if (value == 1) {
+                    this.occupied--;
+                }
+            }
+        }
+        this.entries--;
+    } // method remove
+
+    /**
+     * Check whether a word may be in the filter.
+     *
+     * @param word word to look up
+     * @return false if the word is definitely absent, true if it may be present
+     */
+    public boolean mightContain(String word) {
+        long hash = hash(word);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32) | 1;
+        boolean present = true;
+        for (int i = 0; i < this.probes && present; i++) {
+            present = this.counters[Math.floorMod(h1 + i * h2, this.counters.length)] != 0;
+        }
+        return present;
+    } // method mightContain
+
+    /** Empty the filter */
+    public void clear() {
+        Arrays.fill(this.counters, (byte) 0);
+        this.occupied = 0;
+        this.entries = 0;
+    } // method clear
+
+    /**
+     * Estimate the false-positive rate at the current load: the chance that all
+     * probes of an absent word land on occupied slots.
+     *
+     * @return current false-positive rate, between 0 and 1
+     */
+    public double getFalsePositiveRate() {
+        return Math.pow((double) this.occupied / this.counters.length, this.probes);
+    } // method getFalsePositiveRate
+
+    /**
+     * 64-bit FNV-1a hash of a word's characters, finished with a mixing step so
+     * that both halves are usable as independent probe hashes.
+     *
+     * @param word word to hash
+     * @return 64-bit hash
+     */
+    private static long hash(String word) {
+        long hash = FNV_OFFSET;
+        for (int i = 0; i < word.length(); i++) {
+            hash ^= word.charAt(i);
+            hash *= FNV_PRIME;
+        }
+        hash ^= hash >>> 33;
+        hash *= 0xff51afd7ed558ccdL;
+        hash ^= hash >>> 33;
+        return hash;
+    } // method hash
+
+    /******************************* Accessors *******************************/
+
+    public int getSlots() {
+        return this.counters.length;
+    }
+
+    public int getProbes() {
+        return this.probes;
+    }
+
+    public int getEntries() {
+        return this.entries;
+    }
+
+} // class BloomFilter
@@ -0,0 +1,143 @@
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only set of words served straight from a memory-mapped BSTStore file.
+ * Nothing is materialized: contains binary-searches the file's offset table and
+ * compares the target against the stored characters in place, so opening even a
+ * very large dictionary costs only the mapping itself.
+ *
+ * Instances are obtained through BSTStore.open.
+ */
+public class MappedWordSet {
+
+    /** The mapped file */
+    private final ByteBuffer buffer;
+    /** Number of words in the file */
+    private final int numberOfWords;
+    /** Position of the first record in the file */
+    private final int recordsStart;
+
+    /**
+     * Wrap a mapped file whose header has already been checked.
+     *
+     * @param buffer the mapped BSTStore file
+     */
+    MappedWordSet(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.numberOfWords = buffer.getInt(2 * Integer.BYTES);
+        this.recordsStart = BSTStore.HEADER_BYTES + Integer.BYTES * this.numberOfWords;
+    } // constructor
+
+    /**
+     * Checks if target is one of the stored words, by binary search over the
+     * sorted records. Only absolute reads are used, so a set may be shared by
+     * many threads.
+     *
+     * @param target The string to search for.
+     * @return true if the target is found, false otherwise.
+     */
+    public boolean contains(String target) {
+        return target != null && this.indexOf(target) >= 0;
+    } // method contains
+
+    /**
+     * Occurrence count saved with target.
+     *
+     * @param target word to look up
+     * @return the saved count, 0 if target is not stored
+     */
+    public int count(String target) {
+        int occurrences = 0;
+        int index = -1;
+        if (target != null) {
+            index = this.indexOf(target);
+        }
+        if (index >= 0) {
+            int record = this.recordAt(index);
+            occurrences = this.buffer.getInt(record + Integer.BYTES + Character.BYTES * this.buffer.getInt(record));
+        }
+        return occurrences;
+    } // method count
+
+    /**
+     * The k-th stored word in sorted order, counting from 0.
+     *
+     * @param k position of the word
+     * @return the word, or null if k is out of range
+     */
+    public String get(int k) {
+        String word = null;
+        if (k >= 0 && k < this.numberOfWords) {
+            int record = this.recordAt(k);
+            int length = this.buffer.getInt(record);
+            char[] chars = new char[length];
+            for (int i = 0; i < length; i++) {
+                chars[i] = this.buffer.getChar(record + Integer.BYTES + Character.BYTES * i);
+            }
+            word = new String(chars);
+        }
+        return word;
+    } // method get
+
+    /**
+     * Binary search for target among the records.
+     *
+     * @param target word to find
+     * @return index of the record holding target, or -1
+     */
+    private int indexOf(String target) {
+        int low = 0;
+        int high = this.numberOfWords - 1;
+        int found = -1;
+        while (low <= high && found < 0) {
+            int middle = (low + high) >>> 1;
+            int comparison = this.compareTo(target, this.recordAt(middle));
+            if (comparison == 0) {
+                found = middle;
+            } else if (comparison < 0) {
+                high = middle - 1;
+            } else {
+                low = middle + 1;
+            }
+        }
+        return found;
+    } // method indexOf
+
+    /**
+     * Compare target with a stored word the same way String.compareTo would.
+     *
+     * @param target word to compare
+     * @param record absolute position of the stored word's record
+     * @return negative, zero or positive as target is less than, equal to or
+     *         greater than the stored word
+     */
+    private int compareTo(String target, int record) {
+        int length = this.buffer.getInt(record);
+        int shared = Math.min(length, target.length());
+        int comparison = 0;
+        for (int i = 0; i < shared && comparison == 0; i++) {
+            comparison = target.charAt(i) - this.buffer.getChar(record + Integer.BYTES + Character.BYTES * i);
+        }
+        if (comparison == 0) {
+            comparison = target.length() - length;
+        }
+        return comparison;
+    } // method compareTo
+
+    /**
+     * Absolute position of the k-th record.
+     *
+     * @param k record index
+     * @return position of the record in the buffer
+     */
+    private int recordAt(int k) {
+        return this.recordsStart + this.buffer.getInt(BSTStore.HEADER_BYTES + Integer.BYTES * k);
+    } // method recordAt
+
+    /******************************* Accessors *******************************/
+
+    public int getNumberOfWords() {
+        return this.numberOfWords;
+    }
+
+} // class MappedWordSet
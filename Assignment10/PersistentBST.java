@@ -0,0 +1,381 @@
+import java.util.ArrayDeque;
+
+/**
+ * An immutable (persistent) binary search tree. Every version of the tree is
+ * frozen once it is created: add and remove never touch an existing node,
+ * instead they copy only the nodes on the path from the root to the change
+ * (path copying) and return a new version that shares every untouched subtree
+ * with the version it came from.
+ *
+ * Because nodes reachable from a published version are never mutated, a
+ * reader holding an old version always sees a complete, consistent tree, and
+ * it never has to wait for a writer that is producing newer versions. Taking a
+ * snapshot is therefore O(1): the snapshot is simply the current version.
+ *
+ * The nodes are ordinary TreeNodes, so a version can be inspected with the
+ * same tools used for BST. Callers must not use the TreeNode mutators on nodes
+ * obtained from a PersistentBST, as that would change every version sharing
+ * the node.
+ */
+public class PersistentBST {
+    /** The entry point to this version of the tree */
+    private final TreeNode root;
+    /** Count of nodes in this version of the tree */
+    private final int numberOfNodes;
+    /** Longest and shortest words stored in this version of the tree */
+    private final String longest;
+    private final String shortest;
+
+    // Constant for the message to display when the tree is empty
+    private static final String EMPTY_TREE_MESSAGE = "The tree is empty.\n";
+    // Constant for the default value when the longest or shortest word is null
+    private static final String DEFAULT_WORD_VALUE = "None";
+    // The one empty version; every tree history starts from here
+    private static final PersistentBST EMPTY = new PersistentBST(null, 0, null, null);
+
+    /**
+     * Full constructor, used internally to publish a new version.
+     *
+     * @param root          root of the new version
+     * @param numberOfNodes count of nodes reachable from root
+     * @param longest       longest word in the new version
+     * @param shortest      shortest word in the new version
+     */
+    private PersistentBST(TreeNode root, int numberOfNodes, String longest, String shortest) {
+        this.root = root;
+        this.numberOfNodes = numberOfNodes;
+        this.longest = longest;
+        this.shortest = shortest;
+    } // full constructor
+
+    /**
+     * Obtain the empty tree, the starting point of every version history.
+     *
+     * @return the empty PersistentBST
+     */
+    public static PersistentBST empty() {
+        return EMPTY;
+    } // method empty
+
+    /**
+     * Build a persistent version holding the same words as a mutable BST. The
+     * BST is only read; its nodes are copied so that later changes to the BST
+     * do not leak into the persistent version.
+     *
+     * @param tree mutable tree to copy
+     * @return a PersistentBST with the same shape and contents as tree
+     */
+    public static PersistentBST copyOf(BST tree) {
+        PersistentBST version = EMPTY;
+        if (tree != null && tree.getRoot() != null) {
+            version = new PersistentBST(deepCopy(tree.getRoot()), tree.getNumberOfNodes(),
+                    tree.getLongest(), tree.getShortest());
+        }
+        return version;
+    } // method copyOf
+
+    /**
+     * Return a snapshot of this version. Versions are immutable, so the snapshot
+     * is the version itself and taking it costs O(1).
+     *
+     * @return this version
+     */
+    public PersistentBST snapshot() {
+        return this;
+    } // method snapshot
+
+    /**
+     * Produce a new version that also contains word. Only the nodes on the path
+     * from the root to the insertion point are copied; all other nodes are shared
+     * with this version. If word is already present (or null) this version is
+     * returned unchanged.
+     *
+     * @param word String to add
+     * @return the version containing word
+     */
+    public PersistentBST add(String word) {
+        PersistentBST next = this;
+        if (word != null && !this.contains(word)) {
+            TreeNode newRoot = addCopying(this.root, word);
+            String newLongest = this.longest;
+            String newShortest = this.shortest;
+            if (newLongest == null || word.length() > newLongest.length()) {
+                newLongest = word;
+            }
+            if (newShortest == null || word.length() < newShortest.length()) {
+                newShortest = word;
+            }
+            next = new PersistentBST(newRoot, this.numberOfNodes + 1, newLongest, newShortest);
+        }
+        return next;
+    } // method add
+
+    /**
+     * Produce a new version without target. Only the nodes on the path from the
+     * root to the removed node (and, for a node with two children, to its in-order
+     * successor) are copied. If target is not present (or null) this version is
+     * returned unchanged.
+     *
+     * @param target word to remove
+     * @return the version without target
+     */
+    public PersistentBST remove(String target) {
+        PersistentBST next = this;
+        if (target != null && this.contains(target)) {
+            TreeNode newRoot = removeCopying(this.root, target);
+            int newCount = this.numberOfNodes - 1;
+            String newLongest = this.longest;
+            String newShortest = this.shortest;
+            if (newCount == 0) {
+                newLongest = null;
+                newShortest = null;
+            } else if (target.equals(newLongest) || target.equals(newShortest)) {
+                // The extreme word left the tree; the new extremes can be anywhere, so
+                // rescan the new version once
+                newLongest = null;
+                newShortest = null;
+                TreeNode[] stack = new TreeNode[newCount];
+                int top = 0;
+                stack[top++] = newRoot;
+                while (top > 0) {
+                    TreeNode node = stack[--top];
+                    if (newLongest == null || node.getWord().length() > newLongest.length()) {
+                        newLongest = node.getWord();
+                    }
+                    if (newShortest == null || node.getWord().length() < newShortest.length()) {
+                        newShortest = node.getWord();
+                    }
+                    if (node.hasLeft()) {
+                        stack[top++] = node.getLeft();
+                    }
+                    if (node.hasRight()) {
+                        stack[top++] = node.getRight();
+                    }
+                }
+            }
+            next = new PersistentBST(newRoot, newCount, newLongest, newShortest);
+        }
+        return next;
+    } // method remove
+
+    /**
+     * Checks if target is present in this version.
+     *
+     * @param target The string to search for in the tree.
+     * @return true if the target is found, false otherwise.
+     */
+    public boolean contains(String target) {
+        boolean resultFound = false;
+        TreeNode cursor = this.root;
+        while (target != null && cursor != null && !resultFound) {
+            int comparison = target.compareTo(cursor.getWord());
+            if (comparison == 0) {
+                resultFound = true;
+            } else if (comparison < 0) {
+                cursor = cursor.getLeft();
+            } else {
+                cursor = cursor.getRight();
+            }
+        }
+        return resultFound;
+    } // method contains
+
+    /**
+     * Copy the path from root down to where word belongs and hang a new leaf at
+     * its end. The path is kept on an explicit stack rather than the call stack,
+     * so a degenerate tree (from sorted input) cannot overflow it. The caller
+     * guarantees that word is not already in the tree.
+     *
+     * @param root root of the tree to insert into
+     * @param word word to insert
+     * @return root of the new tree
+     */
+    private static TreeNode addCopying(TreeNode root, String word) {
+        ArrayDeque<TreeNode> path = new ArrayDeque<>();
+        TreeNode cursor = root;
+        while (cursor != null) {
+            path.push(cursor);
+            if (word.compareTo(cursor.getWord()) < 0) {
+                cursor = cursor.getLeft();
+            } else {
+                cursor = cursor.getRight();
+            }
+        }
+        return copyPath(path, new TreeNode(word), word);
+    } // helper method addCopying
+
+    /**
+     * Copy the path from root down to target and splice target out of the copy.
+     * Like addCopying, it walks the path with an explicit stack. The caller
+     * guarantees that target is in the tree.
+     *
+     * @param root   root of the tree to remove from
+     * @param target word to remove
+     * @return root of the new tree, possibly null
+     */
+    private static TreeNode removeCopying(TreeNode root, String target) {
+        ArrayDeque<TreeNode> path = new ArrayDeque<>();
+        TreeNode node = root;
+        int comparison = target.compareTo(node.getWord());
+        while (comparison != 0) {
+            path.push(node);
+            if (comparison < 0) {
+                node = node.getLeft();
+            } else {
+                node = node.getRight();
+            }
+            comparison = target.compareTo(node.getWord());
+        }
+        TreeNode replacement;
+        if (!node.hasLeft()) {
+            // Zero or one child: the surviving subtree is shared as is
+            replacement = node.getRight();
+        } else if (!node.hasRight()) {
+            replacement = node.getLeft();
+        } else {
+            // Two children: the in-order successor takes this node's place, and
+            // the left spine of the right subtree down to it is copied without it
+            ArrayDeque<TreeNode> spine = new ArrayDeque<>();
+            TreeNode successor = node.getRight();
+            while (successor.hasLeft()) {
+                spine.push(successor);
+                successor = successor.getLeft();
+            }
+            TreeNode newRight = copyPath(spine, successor.getRight(), successor.getWord());
+            replacement = copyNode(successor, node.getLeft(), newRight);
+        }
+        return copyPath(path, replacement, target);
+    } // helper method removeCopying
+
+    /**
+     * Rebuild a recorded search path bottom-up: each node on the path is copied
+     * with the new subtree in place of the child the search went into, and
+     * every other child shared.
+     *
+     * @param path    nodes from the root down, the deepest on top
+     * @param subtree new subtree below the deepest node
+     * @param key     word that was searched for, which picks the side at
+     *                each node; it is not equal to any word on the path
+     * @return root of the new tree, or subtree if the path is empty
+     */
+    private static TreeNode copyPath(ArrayDeque<TreeNode> path, TreeNode subtree, String key) {
+        TreeNode child = subtree;
+        while (!path.isEmpty()) {
+            TreeNode node = path.pop();
+            if (key.compareTo(node.getWord()) < 0) {
+                child = copyNode(node, child, node.getRight());
+            } else {
+                child = copyNode(node, node.getLeft(), child);
+            }
+        }
+        return child;
+    } // helper method copyPath
+
+    /**
+     * Make a fresh node carrying the payload of an existing one with new
+     * children.
+     *
+     * @param source node whose payload is copied
+     * @param left   left child of the copy
+     * @param right  right child of the copy
+     * @return the new node
+     */
+    private static TreeNode copyNode(TreeNode source, TreeNode left, TreeNode right) {
+        TreeNode copy = new TreeNode(source.getWord());
+        copy.setCount(source.getCount());
+        copy.setLeft(left);
+        copy.setRight(right);
+        // Keep the order-statistic subtree size consistent on the copy
+        int size = 1;
+        if (left != null) {
+            size += left.getSize();
+        }
+        if (right != null) {
+            size += right.getSize();
+        }
+        copy.setSize(size);
+        return copy;
+    } // helper method copyNode
+
+    /**
+     * Copy a subtree so that the copy shares nothing with it. The nodes are
+     * listed in pre-order and copied in reverse, so every node is copied after
+     * its children, whose copies wait on a stack; no recursion is involved.
+     *
+     * @param root root of the subtree to copy
+     * @return root of the copy
+     */
+    private static TreeNode deepCopy(TreeNode root) {
+        ArrayDeque<TreeNode> pending = new ArrayDeque<>();
+        ArrayDeque<TreeNode> order = new ArrayDeque<>();
+        if (root != null) {
+            pending.push(root);
+        }
+        while (!pending.isEmpty()) {
+            TreeNode node = pending.pop();
+            order.push(node);
+            if (node.hasRight()) {
+                pending.push(node.getRight());
+            }
+            if (node.hasLeft()) {
+                pending.push(node.getLeft());
+            }
+        }
+        ArrayDeque<TreeNode> copies = new ArrayDeque<>();
+        while (!order.isEmpty()) {
+            TreeNode node = order.pop();
+            TreeNode left = null;
+            TreeNode right = null;
+            if (node.hasLeft()) {
+                left = copies.pop();
+            }
+            if (node.hasRight()) {
+                right = copies.pop();
+            }
+            copies.push(copyNode(node, left, right));
+        }
+        return copies.peek();
+    } // helper method deepCopy
+
+    /**
+     * Returns a string representation of this version, in the same format as
+     * BST.toString.
+     *
+     * @return A string describing the tree's properties.
+     */
+    @Override
+    public String toString() {
+        String result = "Persistent Binary Search Tree (BST):\n";
+        String longestWord = DEFAULT_WORD_VALUE;
+        String shortestWord = DEFAULT_WORD_VALUE;
+        if (this.root == null) {
+            result += EMPTY_TREE_MESSAGE;
+        } else {
+            longestWord = this.longest;
+            shortestWord = this.shortest;
+        }
+        result += "Number of Nodes: " + this.numberOfNodes + "\n";
+        result += "Longest Word: " + longestWord + "\n";
+        result += "Shortest Word: " + shortestWord + "\n";
+        return result;
+    } // method toString
+
+    /******************************* Accessors *******************************/
+
+    public int getNumberOfNodes() {
+        return this.numberOfNodes;
+    }
+
+    public TreeNode getRoot() {
+        return this.root;
+    }
+
+    public String getLongest() {
+        return this.longest;
+    }
+
+    public String getShortest() {
+        return this.shortest;
+    }
+
+} // class PersistentBST
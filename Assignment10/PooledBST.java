@@ -0,0 +1,406 @@
+import java.util.Arrays;
+
+/**
+ * A binary search tree with the same public API as BST whose nodes are not
+ * objects. Node i of the tree is described by entry i of a few parallel int
+ * arrays (left child, right child, where its word starts and how long it is),
+ * and the characters of all words live one after another in a single char
+ * arena. A tree of millions of words is then a handful of large arrays instead
+ * of millions of small objects, which saves the per-object headers and
+ * references and gives the garbage collector almost nothing to trace.
+ *
+ * Slots of removed nodes go on a free list threaded through the left array
+ * and are reused by later adds, so remove does not create garbage. Characters
+ * of removed words are reclaimed by compacting the arena once they make up
+ * more than half of it.
+ */
+public class PooledBST {
+
+    /** Marks a missing child and the end of the free list */
+    private static final int NIL = -1;
+    // Starting capacity of the node arrays and the character arena
+    private static final int INITIAL_NODES = 16;
+    private static final int INITIAL_CHARS = 128;
+    // Constant for the message to display when the tree is empty
+    private static final String EMPTY_TREE_MESSAGE = "The tree is empty.\n";
+    // Constant for the default value when the longest or shortest word is null
+    private static final String DEFAULT_WORD_VALUE = "None";
+
+    /** Children of each node slot */
+    private int[] left;
+    private int[] right;
+    /** Where each node's word starts in the arena, and its length */
+    private int[] wordOffset;
+    private int[] wordLength;
+    /** Characters of every word, back to back */
+    private char[] arena;
+    /** Number of arena characters in use, live or dead */
+    private int arenaUsed;
+    /** Number of arena characters that belong to removed words */
+    private int deadChars;
+    /** Slot of the root, or NIL */
+    private int root;
+    /** First free slot, or NIL; the left array links the rest */
+    private int freeHead;
+    /** Number of slots ever handed out */
+    private int slotsUsed;
+    /** Count of nodes in the tree */
+    private int numberOfNodes;
+    /** Longest and shortest words stored in the tree */
+    private String longest;
+    private String shortest;
+
+    /** Default constructor */
+    public PooledBST() {
+        this.left = new int[INITIAL_NODES];
+        this.right = new int[INITIAL_NODES];
+        this.wordOffset = new int[INITIAL_NODES];
+        this.wordLength = new int[INITIAL_NODES];
+        this.arena = new char[INITIAL_CHARS];
+        this.arenaUsed = 0;
+        this.deadChars = 0;
+        this.root = NIL;
+        this.freeHead = NIL;
+        this.slotsUsed = 0;
+        this.numberOfNodes = 0;
+        this.longest = null;
+        this.shortest = null;
+    } // default constructor
+
+    /**
+     * Insert a word into the tree; the method takes no action if the word is
+     * already in the tree.
+     *
+     * @param word String to add to the tree
+     */
+    public void add(String word) {
+        int cursor = this.root;
+        int parent = NIL;
+        int comparison = 0;
+        boolean duplicate = false;
+        while (cursor != NIL && !duplicate) {
+            parent = cursor;
+            comparison = this.compare(word, cursor);
+            duplicate = comparison == 0;
+            if (comparison < 0) {
+                cursor = this.left[cursor];
+            } else {
+                cursor = this.right[cursor];
+            }
+        }
+        if (!duplicate) {
+            int slot = this.allocate(word);
+            if (parent == NIL) {
+                this.root = slot;
+            } else if (comparison < 0) {
+                this.left[parent] = slot;
+            } else {
+                this.right[parent] = slot;
+            }
+            this.numberOfNodes++;
+            if (this.longest == null || word.length() > this.longest.length()) {
+                this.longest = word;
+            }
+            if (this.shortest == null || word.length() < this.shortest.length()) {
+                this.shortest = word;
+            }
+        }
+    } // method add
+
+    /**
+     * Checks if the target word is in the tree.
+     *
+     * @param target The string to search for in the tree.
+     * @return true if the target is found, false otherwise.
+     */
+    public boolean contains(String target) {
+        boolean resultFound = false;
+        int cursor = this.root;
+        while (cursor != NIL && !resultFound) {
+            int comparison = this.compare(target, cursor);
+            if (comparison == 0) {
+                resultFound = true;
+            } else if (comparison < 0) {
+                cursor = this.left[cursor];
+            } else {
+                cursor = this.right[cursor];
+            }
+        }
+        return resultFound;
+    } // method contains
+
+    /**
+     * Removes the target word from the tree. As there are no node objects to hand
+     * back, the removed word is returned wrapped in a new, detached TreeNode so
+     * that callers of BST.remove work unchanged.
+     *
+     * @param target word to remove
+     * @return a TreeNode holding the removed word, or null if it was not found
+     */
+    public TreeNode remove(String target) {
+        TreeNode removed = null;
+        int cursor = this.root;
+        int parent = NIL;
+        boolean found = false;
+        while (target != null && cursor != NIL && !found) {
+            int comparison = this.compare(target, cursor);
+            found = comparison == 0;
+            if (!found) {
+                parent = cursor;
+                if (comparison < 0) {
+                    cursor = this.left[cursor];
+                } else {
+                    cursor = this.right[cursor];
+                }
+            }
+        }
+        if (found) {
+            removed = new TreeNode(target);
+            this.deadChars += this.wordLength[cursor];
+            if (this.left[cursor] != NIL && this.right[cursor] != NIL) {
+                // Two children: move the in-order successor's word here and unlink
+                // the successor instead, which has at most a right child
+                int successorParent = cursor;
+                int successor = this.right[cursor];
+                while (this.left[successor] != NIL) {
+                    successorParent = successor;
+                    successor = this.left[successor];
+                }
+                this.wordOffset[cursor] = this.wordOffset[successor];
+                this.wordLength[cursor] = this.wordLength[successor];
+                this.replaceChild(successorParent, successor, this.right[successor]);
+                this.release(successor);
+            } else {
+                int child = this.left[cursor];
+                if (child == NIL) {
+                    child = this.right[cursor];
+                }
+                this.replaceChild(parent, cursor, child);
+                this.release(cursor);
+            }
+            this.numberOfNodes--;
+            if (this.numberOfNodes == 0) {
+                this.longest = null;
+                this.shortest = null;
+            } else if (target.equals(this.longest) || target.equals(this.shortest)) {
+                this.findExtremes();
+            }
+            if (this.deadChars > INITIAL_CHARS && this.deadChars > this.arenaUsed / 2) {
+                this.compact();
+            }
+        }
+        return removed;
+    } // method remove
+
+    /**
+     * Prints the words of the tree in order, one per line.
+     */
+    public void traverseInOrder() {
+        int[] stack = new int[Math.max(1, this.numberOfNodes)];
+        int top = 0;
+        int cursor = this.root;
+        while (cursor != NIL || top > 0) {
+            if (cursor != NIL) {
+                stack[top++] = cursor;
+                cursor = this.left[cursor];
+            } else {
+                cursor = stack[--top];
+                System.out.println(this.wordAt(cursor));
+                cursor = this.right[cursor];
+            }
+        }
+    } // method traverseInOrder
+
+    /**
+     * Rewrites the arena so that it holds only the characters of live words.
+     * Called automatically by remove once dead characters outnumber live ones.
+     */
+    public void compact() {
+        int liveChars = this.arenaUsed - this.deadChars;
+        char[] packed = new char[Math.max(INITIAL_CHARS, 2 * liveChars)];
+        int used = 0;
+        int[] stack = new int[Math.max(1, this.numberOfNodes)];
+        int top = 0;
+        if (this.root != NIL) {
+            stack[top++] = this.root;
+        }
+        while (top > 0) {
+            int node = stack[--top];
+            System.arraycopy(this.arena, this.wordOffset[node], packed, used, this.wordLength[node]);
+            this.wordOffset[node] = used;
+            used += this.wordLength[node];
+            if (this.left[node] != NIL) {
+                stack[top++] = this.left[node];
+            }
+            if (this.right[node] != NIL) {
+                stack[top++] = this.right[node];
+            }
+        }
+        this.arena = packed;
+        this.arenaUsed = used;
+        this.deadChars = 0;
+    } // method compact
+
+    /**
+     * Returns a string representation of the tree, in the same format as
+     * BST.toString.
+     *
+     * @return A string describing the tree's properties.
+     */
+    @Override
+    public String toString() {
+        String result = "Pooled Binary Search Tree (BST):\n";
+        String longestWord = DEFAULT_WORD_VALUE;
+        String shortestWord = DEFAULT_WORD_VALUE;
+        if (this.root == NIL) {
+            result += EMPTY_TREE_MESSAGE;
+        } else {
+            longestWord = this.longest;
+            shortestWord = this.shortest;
+        }
+        result += "Number of Nodes: " + this.numberOfNodes + "\n";
+        result += "Longest Word: " + longestWord + "\n";
+        result += "Shortest Word: " + shortestWord + "\n";
+        return result;
+    } // method toString
+
+    /**
+     * Compare a word with the word stored in a node, the same way
+     * String.compareTo would, without materializing the stored word.
+     *
+     * @param word word to compare
+     * @param node slot of the node
+     * @return negative, zero or positive as word is less than, equal to or
+     *         greater than the node's word
+     */
+    private int compare(String word, int node) {
+        int offset = this.wordOffset[node];
+        int length = this.wordLength[node];
+        int shared = Math.min(length, word.length());
+        int comparison = 0;
+        for (int i = 0; i < shared && comparison == 0; i++) {
+            comparison = word.charAt(i) - this.arena[offset + i];
+        }
+        if (comparison == 0) {
+            comparison = word.length() - length;
+        }
+        return comparison;
+    } // helper method compare
+
+    /**
+     * Take a slot for a new leaf, from the free list if possible, and copy its
+     * word into the arena.
+     *
+     * @param word word of the new leaf
+     * @return slot of the new leaf
+     */
+    private int allocate(String word) {
+        int slot = this.freeHead;
+        if (slot != NIL) {
+            this.freeHead = this.left[slot];
+        } else {
+            if (this.slotsUsed == this.left.length) {
+                int capacity = 2 * this.left.length;
+                this.left = Arrays.copyOf(this.left, capacity);
+                this.right = Arrays.copyOf(this.right, capacity);
+                this.wordOffset = Arrays.copyOf(this.wordOffset, capacity);
+                this.wordLength = Arrays.copyOf(this.wordLength, capacity);
+            }
+            slot = this.slotsUsed++;
+        }
+        if (this.arenaUsed + word.length() > this.arena.length) {
+            this.arena = Arrays.copyOf(this.arena,
+                    Math.max(2 * this.arena.length, this.arenaUsed + word.length()));
+        }
+        word.getChars(0, word.length(), this.arena, this.arenaUsed);
+        this.wordOffset[slot] = this.arenaUsed;
+        this.wordLength[slot] = word.length();
+        this.arenaUsed += word.length();
+        this.left[slot] = NIL;
+        this.right[slot] = NIL;
+        return slot;
+    } // helper method allocate
+
+    /**
+     * Put a slot back on the free list.
+     *
+     * @param slot slot no longer in the tree
+     */
+    private void release(int slot) {
+        this.left[slot] = this.freeHead;
+        this.right[slot] = NIL;
+        this.freeHead = slot;
+    } // helper method release
+
+    /**
+     * Point parent (or the root, when parent is NIL) at replacement instead of
+     * child.
+     *
+     * @param parent      parent of child, or NIL if child is the root
+     * @param child       child being replaced
+     * @param replacement new child, possibly NIL
+     */
+    private void replaceChild(int parent, int child, int replacement) {
+        if (parent == NIL) {
+            this.root = replacement;
+        } else if (this.left[parent] == child) {
+            this.left[parent] = replacement;
+        } else {
+            this.right[parent] = replacement;
+        }
+    } // helper method replaceChild
+
+    /**
+     * Rescan the tree for its longest and shortest words, after one of them was
+     * removed.
+     */
+    private void findExtremes() {
+        int longestNode = this.root;
+        int shortestNode = this.root;
+        int[] stack = new int[this.numberOfNodes];
+        int top = 0;
+        stack[top++] = this.root;
+        while (top > 0) {
+            int node = stack[--top];
+            if (this.wordLength[node] > this.wordLength[longestNode]) {
+                longestNode = node;
+            }
+            if (this.wordLength[node] < this.wordLength[shortestNode]) {
+                shortestNode = node;
+            }
+            if (this.left[node] != NIL) {
+                stack[top++] = this.left[node];
+            }
+            if (this.right[node] != NIL) {
+                stack[top++] = this.right[node];
+            }
+        }
+        this.longest = this.wordAt(longestNode);
+        this.shortest = this.wordAt(shortestNode);
+    } // helper method findExtremes
+
+    /**
+     * Materialize the word stored in a node.
+     *
+     * @param node slot of the node
+     * @return the node's word
+     */
+    private String wordAt(int node) {
+        return new String(this.arena, this.wordOffset[node], this.wordLength[node]);
+    } // helper method wordAt
+
+    /******************************* Accessors *******************************/
+
+    public int getNumberOfNodes() {
+        return this.numberOfNodes;
+    }
+
+    public String getLongest() {
+        return this.longest;
+    }
+
+    public String getShortest() {
+        return this.shortest;
+    }
+
+} // class PooledBST
@@ -0,0 +1,487 @@
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A radix (Patricia) tree of words with the same API as BST plus prefix
+ * queries. Every edge is labelled with a whole run of characters instead of a
+ * single one, and a node only exists where words branch apart or end. Words
+ * that share a long prefix therefore share one path, and looking a word up
+ * compares each of its characters at most once, instead of re-comparing the
+ * shared prefix at every level as BST.contains does.
+ *
+ * Children are kept sorted by the first character of their label, so a
+ * depth-first walk visits the words in the same order as a BST in-order
+ * traversal.
+ */
+public class RadixTree {
+
+    /**
+     * Inner class for the nodes. Like the Node of SimpleLinkedList, its fields
+     * are accessed directly for simplicity of code.
+     */
+    private static class Node {
+        /** Characters on the edge leading into this node */
+        String label;
+        /** Whether the path from the root to here spells a word in the tree */
+        boolean terminal;
+        /** Children, sorted by the first character of their label */
+        Node[] children;
+        /** Number of children in use */
+        int childCount;
+
+        Node(String label, boolean terminal) {
+            this.label = label;
+            this.terminal = terminal;
+            this.children = NO_CHILDREN;
+            this.childCount = 0;
+        } // constructor
+
+        /**
+         * Binary search for the child whose label starts with c.
+         *
+         * @param c first character of the wanted label
+         * @return index of the child, or -(insertion point) - 1 if there is none
+         */
+        int indexOf(char c) {
+            int low = 0;
+            int high = this.childCount - 1;
+            int found = -1;
+            while (low <= high && found < 0) {
+                int middle = (low + high) >>> 1;
+                char first = this.children[middle].label.charAt(0);
+                if (first == c) {
+                    found = middle;
+                } else if (first < c) {
+                    low = middle + 1;
+                } else {
+                    high = middle - 1;
+                }
+            }
+            if (found < 0) {
+                found = -low - 1;
+            }
+            return found;
+        } // method indexOf
+
+        /**
+         * Insert a child at its sorted position.
+         *
+         * @param child node to insert; no other child may start with the same
+         *              character
+         */
+        void addChild(Node child) {
+            int position = -this.indexOf(child.label.charAt(0)) - 1;
+            if (this.childCount == this.children.length) {
+                this.children = Arrays.copyOf(this.children, Math.max(2, 2 * this.childCount));
+            }
+            System.arraycopy(this.children, position, this.children, position + 1, this.childCount - position);
+            this.children[position] = child;
+            this.childCount++;
+        } // method addChild
+
+        /**
+         * Remove the child at a given position.
+         *
+         * @param position index of the child
+         */
+        void removeChild(int position) {
+            System.arraycopy(this.children, position + 1, this.children, position, this.childCount - position - 1);
+            this.childCount--;
+            this.children[this.childCount] = null;
+        } // method removeChild
+    } // class Node
+
+    // Shared empty child array for leaves
+    private static final Node[] NO_CHILDREN = new Node[0];
+    // Constant for the message to display when the tree is empty
+    private static final String EMPTY_TREE_MESSAGE = "The tree is empty.\n";
+    // Constant for the default value when the longest or shortest word is null
+    private static final String DEFAULT_WORD_VALUE = "None";
+
+    /** The entry point to the tree; its label is always empty */
+    private final Node root;
+    /** Count of words in the tree */
+    private int numberOfWords;
+    /** Longest and shortest words stored in the tree */
+    private String longest;
+    private String shortest;
+
+    /** Default constructor */
+    public RadixTree() {
+        this.root = new Node("", false);
+        this.numberOfWords = 0;
+        this.longest = null;
+        this.shortest = null;
+    } // default constructor
+
+    /**
+     * Insert a word into the tree; the method takes no action if the word is
+     * already in the tree.
+     *
+     * @param word String to add to the tree
+     */
+    public void add(String word) {
+        Node node = this.root;
+        int matched = 0;
+        boolean added = false;
+        boolean done = false;
+        while (!done) {
+            if (matched == word.length()) {
+                // The word ends exactly at this node
+                added = !node.terminal;
+                node.terminal = true;
+                done = true;
+            } else {
+                int position = node.indexOf(word.charAt(matched));
+                if (position < 0) {
+                    // Nothing starts with the next character: hang the rest as a leaf
+                    node.addChild(new Node(word.substring(matched), true));
+                    added = true;
+                    done = true;
+                } else {
+                    Node child = node.children[position];
+                    int common = commonPrefix(word, matched, child.label);
+                    if (common < child.label.length()) {
+                        // The word leaves the edge part way: split the edge there
+                        Node middle = new Node(child.label.substring(0, common), false);
+                        child.label = child.label.substring(common);
+                        middle.addChild(child);
+                        node.children[position] = middle;
+                    }
+                    node = node.children[position];
+                    matched += common;
+                }
+            }
+        }
+        if (added) {
+            this.numberOfWords++;
+            if (this.longest == null || word.length() > this.longest.length()) {
+                this.longest = word;
+            }
+            if (this.shortest == null || word.length() < this.shortest.length()) {
+                this.shortest = word;
+            }
+        }
+    } // method add
+
+    /**
+     * Checks if the target word is in the tree.
+     *
+     * @param target The string to search for in the tree.
+     * @return true if the target is found, false otherwise.
+     */
+    public boolean contains(String target) {
+        Node node = this.find(target, false);
+        return node != null && node.terminal;
+    } // method contains
+
+    /**
+     * Checks if any word in the tree starts with prefix. Runs in O(prefix
+     * length).
+     *
+     * @param prefix prefix to look for; the empty prefix matches any word
+     * @return true if at least one word starts with prefix
+     */
+    public boolean startsWith(String prefix) {
+        Node node = this.find(prefix, true);
+        return node != null && (node.terminal || node.childCount > 0);
+    } // method startsWith
+
+    /**
+     * Lists the words that start with prefix, in sorted order. Runs in O(prefix
+     * length + total length of the results).
+     *
+     * @param prefix prefix to look for; the empty prefix lists every word
+     * @return the matching words, possibly none
+     */
+    public ArrayList<String> withPrefix(String prefix) {
+        ArrayList<String> words = new ArrayList<>();
+        if (prefix != null) {
+            // Find the node at or just below the end of the prefix, remembering the
+            // characters spelled on the way there
+            Node node = this.root;
+            StringBuilder path = new StringBuilder();
+            int matched = 0;
+            while (node != null && matched < prefix.length()) {
+                int position = node.indexOf(prefix.charAt(matched));
+                Node child = null;
+                if (position >= 0) {
+                    child = node.children[position];
+                    int common = commonPrefix(prefix, matched, child.label);
+                    if (common == child.label.length() || matched + common == prefix.length()) {
+                        path.append(child.label);
+                        matched += common;
+                    } else {
+                        child = null;
+                    }
+                }
+                node = child;
+            }
+            if (node != null) {
+                collect(node, path, words);
+            }
+        }
+        return words;
+    } // method withPrefix
+
+    /**
+     * Removes a word from the tree, merging any node left with a single child
+     * into that child so that the tree stays path-compressed.
+     *
+     * @param target word to remove
+     * @return a detached TreeNode holding the removed word, or null if it was not
+     *         found; this mirrors BST.remove
+     */
+    public TreeNode remove(String target) {
+        TreeNode removed = null;
+        Node parent = null;
+        int parentPosition = -1;
+        Node node = this.root;
+        int matched = 0;
+        while (target != null && node != null && matched < target.length()) {
+            int position = node.indexOf(target.charAt(matched));
+            Node child = null;
+            if (position >= 0 && target.startsWith(node.children[position].label, matched)) {
+                child = node.children[position];
+                matched += child.label.length();
+            }
+            if (child != null) {
+                parent = node;
+                parentPosition = position;
+            }
+            node = child;
+        }
+        if (node != null && node.terminal) {
+            removed = new TreeNode(target);
+            node.terminal = false;
+            if (parent != null) {
+                if (node.childCount == 0) {
+                    parent.removeChild(parentPosition);
+                    // The parent may now be a pass-through node with one child
+                    this.mergeWithOnlyChild(parent);
+                } else {
+                    this.mergeWithOnlyChild(node);
+                }
+            }
+            this.numberOfWords--;
+            if (this.numberOfWords == 0) {
+                this.longest = null;
+                this.shortest = null;
+            } else if (target.equals(this.longest) || target.equals(this.shortest)) {
+                this.findExtremes();
+            }
+        }
+        return removed;
+    } // method remove
+
+    /**
+     * Prints the words of the tree in order, one per line.
+     */
+    public void traverseInOrder() {
+        for (String word : this.withPrefix("")) {
+            System.out.println(word);
+        }
+    } // method traverseInOrder
+
+    /**
+     * Returns a string representation of the tree, in the same format as
+     * BST.toString.
+     *
+     * @return A string describing the tree's properties.
+     */
+    @Override
+    public String toString() {
+        String result = "Radix Tree:\n";
+        String longestWord = DEFAULT_WORD_VALUE;
+        String shortestWord = DEFAULT_WORD_VALUE;
+        if (this.numberOfWords == 0) {
+            result += EMPTY_TREE_MESSAGE;
+        } else {
+            longestWord = this.longest;
+            shortestWord = this.shortest;
+        }
+        result += "Number of Nodes: " + this.numberOfWords + "\n";
+        result += "Longest Word: " + longestWord + "\n";
+        result += "Shortest Word: " + shortestWord + "\n";
+        return result;
+    } // method toString
+
+    /**
+     * Walk down the tree along a key.
+     *
+     * @param key         characters to follow
+     * @param allowInside whether the key may end part way along an edge, as a
+     *                    prefix may
+     * @return the node where the key ends (or the node below the edge it ends
+     *         in), or null if the key leaves the tree
+     */
+    private Node find(String key, boolean allowInside) {
+        Node node = this.root;
+        int matched = 0;
+        while (key != null && node != null && matched < key.length()) {
+            int position = node.indexOf(key.charAt(matched));
+            Node child = null;
+            if (position >= 0) {
+                child = node.children[position];
+                int common = commonPrefix(key, matched, child.label);
+                if (common == child.label.length() || (allowInside && matched + common == key.length())) {
+                    matched += common;
+                } else {
+                    child = null;
+                }
+            }
+            node = child;
+        }
+        if (key == null) {
+            node = null;
+        }
+        return node;
+    } // helper method find
+
+    /**
+     * Fold a non-terminal node with exactly one child into that child, so that
+     * no pass-through nodes remain. The root is never folded.
+     *
+     * @param node node to check
+     */
+    private void mergeWithOnlyChild(Node node) {
+        if (node != this.root && !node.terminal && node.childCount == 1) {
+            Node child = node.children[0];
+            node.label = node.label + child.label;
+            node.terminal = child.terminal;
+            node.children = child.children;
+            node.childCount = child.childCount;
+        }
+    } // helper method mergeWithOnlyChild
+
+    /**
+     * Rescan the tree for its longest and shortest words, after one of them was
+     * removed.
+     */
+    private void findExtremes() {
+        this.longest = null;
+        this.shortest = null;
+        for (String word : this.withPrefix("")) {
+            if (this.longest == null || word.length() > this.longest.length()) {
+                this.longest = word;
+            }
+            if (this.shortest == null || word.length() < this.shortest.length()) {
+                this.shortest = word;
+            }
+        }
+    } // helper method findExtremes
+
+    /**
+     * Depth-first, in-order collection of the words below a node.
+     *
+     * @param node  node to start from
+     * @param path  characters spelled from the root to node; restored on return
+     * @param words list receiving the words
+     */
+    private static void collect(Node node, StringBuilder path, ArrayList<String> words) {
+        if (node.terminal) {
+            words.add(path.toString());
+        }
+        for (int i = 0; i < node.childCount; i++) {
+            int mark = path.length();
+            path.append(node.children[i].label);
+            collect(node.children[i], path, words);
+            path.setLength(mark);
+        }
+    } // helper method collect
+
+    /**
+     * Length of the common prefix of key (from position start) and label.
+     *
+     * @param key   word being processed
+     * @param start first character of key to compare
+     * @param label edge label
+     * @return number of matching characters
+     */
+    private static int commonPrefix(String key, int start, String label) {
+        int limit = Math.min(key.length() - start, label.length());
+        int common = 0;
+        while (common < limit && key.charAt(start + common) == label.charAt(common)) {
+            common++;
+        }
+        return common;
+    } // helper method commonPrefix
+
+    /******************************* Accessors *******************************/
+
+    public int getNumberOfNodes() {
+        return this.numberOfWords;
+    }
+
+    public String getLongest() {
+        return this.longest;
+    }
+
+    public String getShortest() {
+        return this.shortest;
+    }
+
+    /**
+     * Driver code: compares memory and lookup cost against BST on words that
+     * share long prefixes. Pass the number of words as the first argument.
+     */
+    public static void main(String[] args) {
+        int size = 200_000;
+        if (args.length > 0) {
+            size = Integer.parseInt(args[0]);
+        }
+        String[] stems = { "inter", "international", "internationalization", "under", "understand",
+                "representation", "re", "pre", "trans", "transport" };
+        Random random = new Random(271);
+        String[] words = new String[size];
+        for (int i = 0; i < size; i++) {
+            words[i] = stems[random.nextInt(stems.length)] + Integer.toString(random.nextInt(size), 36);
+        }
+        String[] misses = new String[size];
+        for (int i = 0; i < size; i++) {
+            misses[i] = words[i] + "#";
+        }
+
+        Runtime runtime = Runtime.getRuntime();
+        System.gc();
+        long before = runtime.totalMemory() - runtime.freeMemory();
+        long start = System.nanoTime();
+        BST bst = new BST();
+        for (String word : words) {
+            bst.add(word);
+        }
+        long bstAdd = System.nanoTime() - start;
+        System.gc();
+        long bstMemory = runtime.totalMemory() - runtime.freeMemory() - before;
+
+        before = runtime.totalMemory() - runtime.freeMemory();
+        start = System.nanoTime();
+        RadixTree radix = new RadixTree();
+        for (String word : words) {
+            radix.add(word);
+        }
+        long radixAdd = System.nanoTime() - start;
+        System.gc();
+        long radixMemory = runtime.totalMemory() - runtime.freeMemory() - before;
+
+        int found = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            found += (bst.contains(words[i]) ? 1 : 0) + (bst.contains(misses[i]) ? 1 : 0);
+        }
+        long bstLookup = System.nanoTime() - start;
+        start = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            found += (radix.contains(words[i]) ? 1 : 0) + (radix.contains(misses[i]) ? 1 : 0);
+        }
+        long radixLookup = System.nanoTime() - start;
+
+        System.out.printf("%d words added, %d distinct, %d lookups hit%n", size, radix.getNumberOfNodes(), found);
+        System.out.printf("%-10s %12s %14s %16s%n", "Tree", "Memory (KB)", "Add (ns/word)", "Lookup (ns/op)");
+        System.out.printf("%-10s %12d %14d %16d%n", "BST", bstMemory / 1024, bstAdd / size, bstLookup / (2L * size));
+        System.out.printf("%-10s %12d %14d %16d%n", "RadixTree", radixMemory / 1024, radixAdd / size,
+                radixLookup / (2L * size));
+    } // method main
+
+} // class RadixTree
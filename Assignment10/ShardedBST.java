@@ -0,0 +1,499 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * A word set split by key range into independent BSTs (shards), so that large
+ * corpora can be loaded by several threads at once. Shard i holds the words w
+ * with splitters[i - 1] <= w < splitters[i]; as the ranges do not overlap, each
+ * shard can be filled without looking at the others.
+ *
+ * The class is a facade with the same add, contains, remove and
+ * getNumberOfNodes API as BST. Once loading is done, toBST stitches the shards
+ * into one balanced BST, since the in-order sequence of shard 0, shard 1, ... is
+ * already sorted.
+ *
+ * Each shard is guarded by its own lock, so the facade methods are safe to call
+ * from several threads; contention is limited to threads hitting the same key
+ * range.
+ */
+public class ShardedBST {
+
+    // Bytes each ingestion worker reads from the file at a time
+    private static final int WINDOW_BYTES = 1 << 16;
+    // Words a worker collects for a shard before taking the shard's lock
+    private static final int BATCH_WORDS = 1024;
+    // Number and size of the windows sampled to choose the splitters
+    private static final int SAMPLE_WINDOWS = 32;
+    private static final int SAMPLE_WINDOW_BYTES = 1 << 14;
+
+    /** Lower bounds of shards 1..n-1, sorted and distinct */
+    private final String[] splitters;
+    /** The shards; shards.length == splitters.length + 1 */
+    private final BST[] shards;
+    /** Whether the shards count duplicates */
+    private final boolean counting;
+
+    /**
+     * Build an empty sharded set with the given key ranges.
+     *
+     * @param splitters lower bounds of every shard but the first; must be
+     *                  strictly increasing
+     * @param counting  whether the shards count duplicates (see BST(boolean))
+     */
+    public ShardedBST(String[] splitters, boolean counting) {
+        for (int i = 1; i < splitters.length; i++) {
+            if (splitters[i - 1].compareTo(splitters[i]) >= 0) {
+                throw new IllegalArgumentException("Splitters must be strictly increasing at " + i);
+            }
+        }
+        this.splitters = splitters.clone();
+        this.counting = counting;
+        this.shards = new BST[splitters.length + 1];
+        for (int i = 0; i < this.shards.length; i++) {
+            this.shards[i] = new BST(counting);
+        }
+    } // constructor
+
+    /**
+     * Load the words of a UTF-8 text file using a pool of platform threads, one
+     * per requested worker.
+     *
+     * @param file      text to load; words are tokenized as in BST.ingest
+     * @param numShards number of key ranges to split the words into
+     * @param workers   number of threads reading the file
+     * @param counting  whether the shards count duplicates
+     * @return the loaded sharded set
+     * @throws IOException if the file cannot be read
+     */
+    public static ShardedBST ingest(Path file, int numShards, int workers, boolean counting) throws IOException {
+        ExecutorService executor = Executors.newFixedThreadPool(workers);
+        try {
+            return ingest(file, numShards, workers, counting, executor);
+        } finally {
+            executor.shutdown();
+        }
+    } // method ingest
+
+    /**
+     * Load the words of a UTF-8 text file with tasks run by a caller-supplied
+     * executor, for example one that starts a virtual thread per task. The file
+     * is cut into chunks at word boundaries; each chunk is read through a fixed
+     * window by one task, which routes its words to the shards in batches.
+     *
+     * @param file      text to load; words are tokenized as in BST.ingest
+     * @param numShards number of key ranges to split the words into
+     * @param chunks    number of pieces the file is cut into, one task each
+     * @param counting  whether the shards count duplicates
+     * @param executor  runs the chunk tasks; it is not shut down
+     * @return the loaded sharded set
+     * @throws IOException if the file cannot be read
+     */
+    public static ShardedBST ingest(Path file, int numShards, int chunks, boolean counting, ExecutorService executor)
+            throws IOException {
+        ShardedBST sharded;
+        long[] bounds = new long[chunks + 1];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            sharded = new ShardedBST(sampleSplitters(channel, numShards), counting);
+            long size = channel.size();
+            bounds[chunks] = size;
+            for (int i = 1; i < chunks; i++) {
+                bounds[i] = Math.max(bounds[i - 1], alignToWordBoundary(channel, size * i / chunks));
+            }
+        }
+        ArrayList<Future<Void>> tasks = new ArrayList<>();
+        for (int i = 0; i < chunks; i++) {
+            long start = bounds[i];
+            long end = bounds[i + 1];
+            tasks.add(executor.submit(() -> {
+                sharded.loadRange(file, start, end);
+                return null;
+            }));
+        }
+        try {
+            for (Future<Void> task : tasks) {
+                task.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while loading " + file);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to load " + file, e.getCause());
+        }
+        return sharded;
+    } // method ingest
+
+    /**
+     * Insert a word into the shard that owns its key range.
+     *
+     * @param word String to add
+     */
+    public void add(String word) {
+        BST shard = this.shardFor(word);
+        synchronized (shard) {
+            shard.add(word);
+        }
+    } // method add
+
+    /**
+     * Checks if the target word is in the set.
+     *
+     * @param target The string to search for.
+     * @return true if the target is found, false otherwise.
+     */
+    public boolean contains(String target) {
+        boolean found = false;
+        if (target != null) {
+            BST shard = this.shardFor(target);
+            synchronized (shard) {
+                found = shard.contains(target);
+            }
+        }
+        return found;
+    } // method contains
+
+    /**
+     * Removes the target word from the shard that owns it.
+     *
+     * @param target word to remove
+     * @return the removed node, or null if the word was not found
+     */
+    public TreeNode remove(String target) {
+        TreeNode removed = null;
+        if (target != null) {
+            BST shard = this.shardFor(target);
+            synchronized (shard) {
+                removed = shard.remove(target);
+            }
+        }
+        return removed;
+    } // method remove
+
+    /**
+     * Stitches the shards into one BST. The shards are walked in order, which
+     * yields every word in sorted order, and the words are arranged into a
+     * balanced tree. The shards themselves are left untouched.
+     *
+     * @return a new BST holding every word of the set
+     */
+    public BST toBST() {
+        TreeNode[] nodes = new TreeNode[this.getNumberOfNodes()];
+        int index = 0;
+        String longest = null;
+        String shortest = null;
+        for (BST shard : this.shards) {
+            synchronized (shard) {
+                ArrayDeque<TreeNode> stack = new ArrayDeque<>();
+                TreeNode cursor = shard.getRoot();
+                while (cursor != null || !stack.isEmpty()) {
+                    if (cursor != null) {
+                        stack.push(cursor);
+                        cursor = cursor.getLeft();
+                    } else {
+                        cursor = stack.pop();
+                        TreeNode copy = new TreeNode(cursor.getWord());
+                        copy.setCount(cursor.getCount());
+                        nodes[index++] = copy;
+                        if (longest == null || copy.getWord().length() > longest.length()) {
+                            longest = copy.getWord();
+                        }
+                        if (shortest == null || copy.getWord().length() < shortest.length()) {
+                            shortest = copy.getWord();
+                        }
+                        cursor = cursor.getRight();
+                    }
+                }
+            }
+        }
+        BST stitched = new BST(this.counting);
+        stitched.adopt(link(nodes, 0, index - 1), index, longest, shortest);
+        return stitched;
+    } // method toBST
+
+    /**
+     * Returns a string representation of the set, in the same format as
+     * BST.toString, followed by the size of every shard.
+     *
+     * @return A string describing the set's properties.
+     */
+    @Override
+    public String toString() {
+        String result = "Sharded Binary Search Tree (BST):\n";
+        result += "Number of Nodes: " + this.getNumberOfNodes() + "\n";
+        result += "Longest Word: " + this.getLongest() + "\n";
+        result += "Shortest Word: " + this.getShortest() + "\n";
+        result += "Shard sizes:";
+        for (BST shard : this.shards) {
+            result += " " + shard.getNumberOfNodes();
+        }
+        return result + "\n";
+    } // method toString
+
+    /**
+     * Read one chunk of a file and route its words to the shards.
+     *
+     * @param file  file to read
+     * @param start first byte of the chunk, at a word boundary
+     * @param end   byte after the chunk, at a word boundary
+     * @throws IOException if the file cannot be read
+     */
+    private void loadRange(Path file, long start, long end) throws IOException {
+        CharsetDecoder decoder = StandardCharsets.UTF_8.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE);
+        ByteBuffer bytes = ByteBuffer.allocate(WINDOW_BYTES);
+        // UTF-8 never decodes to more chars than it has bytes
+        CharBuffer chars = CharBuffer.allocate(WINDOW_BYTES);
+        StringBuilder word = new StringBuilder();
+        ArrayList<ArrayList<String>> pending = new ArrayList<>(this.shards.length);
+        for (int i = 0; i < this.shards.length; i++) {
+            pending.add(new ArrayList<>(BATCH_WORDS));
+        }
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long position = start;
+            boolean endOfInput = false;
+            while (!endOfInput) {
+                // Fill the window after any bytes left over from a split character
+                bytes.limit(bytes.position() + (int) Math.min(bytes.remaining(), end - position));
+                int read = 0;
+                while (bytes.hasRemaining() && read >= 0) {
+                    read = channel.read(bytes, position);
+                    position += Math.max(read, 0);
+                }
+                endOfInput = position >= end || read < 0;
+                bytes.flip();
+                decoder.decode(bytes, chars, endOfInput);
+                if (endOfInput) {
+                    decoder.flush(chars);
+                }
+                chars.flip();
+                while (chars.hasRemaining()) {
+                    char c = chars.get();
+                    if (BST.isWordChar(c)) {
+                        word.append(c);
+                    } else if (word.length() > 0) {
+                        this.route(word.toString(), pending);
+                        word.setLength(0);
+                    }
+                }
+                chars.clear();
+                bytes.compact();
+            }
+        }
+        // The chunk ends at a word boundary, but the file may end inside a word
+        if (word.length() > 0) {
+            this.route(word.toString(), pending);
+        }
+        for (int i = 0; i < this.shards.length; i++) {
+            this.flush(i, pending.get(i));
+        }
+    } // helper method loadRange
+
+    /**
+     * Queue a word for its shard, handing the batch over once it is full.
+     *
+     * @param word    word to queue
+     * @param pending per-shard batches of the calling worker
+     */
+    private void route(String word, ArrayList<ArrayList<String>> pending) {
+        int index = this.shardIndex(word);
+        ArrayList<String> batch = pending.get(index);
+        batch.add(word);
+        if (batch.size() >= BATCH_WORDS) {
+            this.flush(index, batch);
+        }
+    } // helper method route
+
+    /**
+     * Add a batch of words to a shard under its lock and empty the batch.
+     *
+     * @param index shard to add to
+     * @param batch words to add
+     */
+    private void flush(int index, ArrayList<String> batch) {
+        BST shard = this.shards[index];
+        synchronized (shard) {
+            for (String word : batch) {
+                shard.add(word);
+            }
+        }
+        batch.clear();
+    } // helper method flush
+
+    /**
+     * Index of the shard that owns a word: the number of splitters that are less
+     * than or equal to it.
+     *
+     * @param word word to place
+     * @return shard index
+     */
+    private int shardIndex(String word) {
+        int position = Arrays.binarySearch(this.splitters, word);
+        if (position >= 0) {
+            position++;
+        } else {
+            position = -position - 1;
+        }
+        return position;
+    } // helper method shardIndex
+
+    /**
+     * The shard that owns a word.
+     *
+     * @param word word to place
+     * @return the shard
+     */
+    private BST shardFor(String word) {
+        return this.shards[this.shardIndex(word)];
+    } // helper method shardFor
+
+    /**
+     * Choose splitters that give each shard a similar share of the words, from
+     * the quantiles of words sampled at evenly spaced places in the file.
+     *
+     * @param channel   open file
+     * @param numShards wanted number of shards
+     * @return distinct, increasing splitters; fewer than numShards - 1 if the
+     *         sample has too few distinct words
+     * @throws IOException if the file cannot be read
+     */
+    private static String[] sampleSplitters(FileChannel channel, int numShards) throws IOException {
+        ArrayList<String> sample = new ArrayList<>();
+        long size = channel.size();
+        ByteBuffer window = ByteBuffer.allocate(SAMPLE_WINDOW_BYTES);
+        for (int i = 0; i < SAMPLE_WINDOWS && size > 0; i++) {
+            window.clear();
+            channel.read(window, size * i / SAMPLE_WINDOWS);
+            window.flip();
+            String text = StandardCharsets.UTF_8.decode(window).toString();
+            // Skip the first and last tokens, which may be cut by the window
+            int from = 0;
+            while (from < text.length() && BST.isWordChar(text.charAt(from)) && i > 0) {
+                from++;
+            }
+            StringBuilder word = new StringBuilder();
+            for (int j = from; j < text.length(); j++) {
+                if (BST.isWordChar(text.charAt(j))) {
+                    word.append(text.charAt(j));
+                } else if (word.length() > 0) {
+                    sample.add(word.toString());
+                    word.setLength(0);
+                }
+            }
+        }
+        sample.sort(null);
+        ArrayList<String> splitters = new ArrayList<>();
+        for (int i = 1; i < numShards && !sample.isEmpty(); i++) {
+            String candidate = sample.get(sample.size() * i / numShards);
+            if (splitters.isEmpty() || candidate.compareTo(splitters.get(splitters.size() - 1)) > 0) {
+                splitters.add(candidate);
+            }
+        }
+        return splitters.toArray(new String[0]);
+    } // helper method sampleSplitters
+
+    /**
+     * Move a byte position forward to just after the next ASCII separator, so
+     * that no word and no multi-byte UTF-8 character straddles a chunk boundary.
+     *
+     * @param channel  open file
+     * @param position candidate boundary
+     * @return aligned boundary, at most the file size
+     * @throws IOException if the file cannot be read
+     */
+    private static long alignToWordBoundary(FileChannel channel, long position) throws IOException {
+        ByteBuffer probe = ByteBuffer.allocate(256);
+        long size = channel.size();
+        boolean aligned = false;
+        while (!aligned && position < size) {
+            probe.clear();
+            int read = channel.read(probe, position);
+            for (int i = 0; i < read && !aligned; i++) {
+                int b = probe.get(i);
+                position++;
+                aligned = b >= 0 && !BST.isWordChar((char) b);
+            }
+        }
+        return position;
+    } // helper method alignToWordBoundary
+
+    /**
+     * Link a sorted run of detached nodes into a balanced subtree.
+     *
+     * @param nodes sorted nodes
+     * @param low   first index of the run
+     * @param high  last index of the run
+     * @return root of the subtree, null for an empty run
+     */
+    private static TreeNode link(TreeNode[] nodes, int low, int high) {
+        TreeNode node = null;
+        if (low <= high) {
+            int middle = (low + high) >>> 1;
+            node = nodes[middle];
+            node.setLeft(link(nodes, low, middle - 1));
+            node.setRight(link(nodes, middle + 1, high));
+            node.setSize(high - low + 1);
+        }
+        return node;
+    } // helper method link
+
+    /******************************* Accessors *******************************/
+
+    public int getNumberOfNodes() {
+        int total = 0;
+        for (BST shard : this.shards) {
+            synchronized (shard) {
+                total += shard.getNumberOfNodes();
+            }
+        }
+        return total;
+    }
+
+    public String getLongest() {
+        String longest = null;
+        for (BST shard : this.shards) {
+            synchronized (shard) {
+                if (shard.getNumberOfNodes() > 0
+                        && (longest == null || shard.getLongest().length() > longest.length())) {
+                    longest = shard.getLongest();
+                }
+            }
+        }
+        return longest;
+    }
+
+    public String getShortest() {
+        String shortest = null;
+        for (BST shard : this.shards) {
+            synchronized (shard) {
+                if (shard.getNumberOfNodes() > 0
+                        && (shortest == null || shard.getShortest().length() < shortest.length())) {
+                    shortest = shard.getShortest();
+                }
+            }
+        }
+        return shortest;
+    }
+
+    public int getNumberOfShards() {
+        return this.shards.length;
+    }
+
+} // class ShardedBST
@@ -5,6 +5,10 @@ public class TreeNode implements Comparable<TreeNode> {
     /** Its left and right pointers */
     private TreeNode left;
     private TreeNode right;
+    /** Number of nodes in the subtree rooted here, this node included */
+    private int size;
+    /** Occurrences of the word, used when the tree counts duplicates */
+    private int count;
 
     /**
      * Basic constructor creates a simple node with a payload and two null children.
@@ -15,6 +19,8 @@ public class TreeNode implements Comparable<TreeNode> {
         this.word = word;
         this.left = null;
         this.right = null;
+        this.size = 1;
+        this.count = 1;
     } // basic constructor
 
     /**
@@ -95,5 +101,21 @@ public class TreeNode implements Comparable<TreeNode> {
         this.word = word;
     }
 
+    public int getSize() {
+        return this.size;
+    }
+
+    public void setSize(int size) {
+        this.size = size;
+    }
+
+    public int getCount() {
+        return this.count;
+    }
+
+    public void setCount(int count) {
+        this.count = count;
+    }
+
 } // class TreeNode
 
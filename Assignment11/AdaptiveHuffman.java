@@ -0,0 +1,270 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Adaptive Huffman coding with the FGK algorithm (Faller, Gallager, Knuth):
+ * the code tree is updated after every symbol, so data can be compressed as
+ * it arrives, in a single pass and without sending any code table. Encoder and
+ * decoder start from the same empty tree and apply the same updates, so they
+ * always agree on the codes.
+ *
+ * The tree starts as a single NYT ("not yet transmitted") leaf of weight 0. A
+ * symbol seen before is sent with the code of its leaf. A new symbol is sent as
+ * the code of NYT followed by the symbol in RAW_BITS plain bits; NYT then
+ * splits into a new NYT and a leaf for the symbol. The alphabet is the 256
+ * byte values plus END_OF_STREAM, which is always sent as a new symbol and
+ * tells the decoder where the padding of the last byte begins.
+ *
+ * After each symbol the weights on the path from its leaf to the root go up by
+ * one. FGK keeps the tree a Huffman tree by numbering the nodes so that weights
+ * never decrease with the number and siblings are numbered consecutively (the
+ * sibling property). Before a node's weight goes up it is swapped with the
+ * highest-numbered node of the same weight, which keeps the numbering valid.
+ */
+public class AdaptiveHuffman {
+
+    /** Number of byte values */
+    static final int BYTE_SYMBOLS = Histogram.SYMBOLS;
+    /** Symbol that marks the end of a stream */
+    static final int END_OF_STREAM = BYTE_SYMBOLS;
+    /** Size of the alphabet: every byte value and END_OF_STREAM */
+    static final int SYMBOLS = BYTE_SYMBOLS + 1;
+    /** Plain bits that follow NYT to spell out a new symbol */
+    static final int RAW_BITS = 9;
+    /** Most nodes a tree can have: a leaf per symbol, NYT, and their parents */
+    static final int MAX_NODES = 2 * SYMBOLS + 1;
+
+    /** Leaf of each symbol seen so far */
+    private final HuffmanNode[] leaves;
+    /** Every node by its number; the root has the highest number */
+    private final HuffmanNode[] byOrder;
+    /** Root of the tree */
+    private final HuffmanNode root;
+    /** Leaf that stands for all symbols not seen yet */
+    private HuffmanNode notYetTransmitted;
+
+    /** Default constructor: a tree with only the NYT leaf */
+    public AdaptiveHuffman() {
+        this.leaves = new HuffmanNode[SYMBOLS];
+        this.byOrder = new HuffmanNode[MAX_NODES];
+        this.root = new HuffmanNode(0);
+        this.root.setOrder(MAX_NODES - 1);
+        this.byOrder[MAX_NODES - 1] = this.root;
+        this.notYetTransmitted = this.root;
+    } // default constructor
+
+    /**
+     * Whether a symbol has been seen, so that it has a leaf of its own.
+     *
+     * @param symbol 0 to 256
+     * @return true if the symbol has a leaf
+     */
+    public boolean isKnown(int symbol) {
+        return this.leaves[symbol] != null;
+    } // method isKnown
+
+    /**
+     * Spell out the current code of a symbol, or of NYT if the symbol is new.
+     *
+     * @param symbol 0 to 256
+     * @param bits   receives the code, one bit per entry, root first; room for
+     *               MAX_NODES entries is always enough
+     * @return length of the code
+     */
+    public int code(int symbol, byte[] bits) {
+        HuffmanNode node = this.leaves[symbol];
+        if (node == null) {
+            node = this.notYetTransmitted;
+        }
+        // Walk up to the root, filling the bits from the end, then shift them to
+        // the front
+        int position = bits.length;
+        while (node != this.root) {
+            HuffmanNode parent = node.getParent();
+            bits[--position] = (byte) (parent.getRight() == node ? 1 : 0);
+            node = parent;
+        }
+        int length = bits.length - position;
+        System.arraycopy(bits, position, bits, 0, length);
+        return length;
+    } // method code
+
+    /**
+     * Account for one more occurrence of a symbol, adding a leaf for it if it
+     * is new. Encoder and decoder call this after every symbol.
+     *
+     * @param symbol 0 to 256
+     */
+    public void update(int symbol) {
+        HuffmanNode node = this.leaves[symbol];
+        if (node == null) {
+            // Split NYT: it becomes the parent of a new NYT and of the new leaf
+            HuffmanNode parent = this.notYetTransmitted;
+            int order = parent.getOrder();
+            HuffmanNode nyt = this.attach(new HuffmanNode(0), parent, order - 2);
+            node = this.attach(new HuffmanNode((char) symbol, 0), parent, order - 1);
+            parent.setLeft(nyt);
+            parent.setRight(node);
+            this.notYetTransmitted = nyt;
+            this.leaves[symbol] = node;
+        }
+        while (node != null) {
+            HuffmanNode leader = this.blockLeader(node);
+            if (leader != node && leader != node.getParent()) {
+                this.swap(node, leader);
+            }
+            node.incrementFrequency();
+            node = node.getParent();
+        }
+    } // method update
+
+    /**
+     * Whether a leaf reached by a decoder is NYT, meaning that a new symbol
+     * follows in RAW_BITS plain bits.
+     *
+     * @param leaf a leaf of the tree
+     * @return true if the leaf is NYT
+     */
+    public boolean isEscape(HuffmanNode leaf) {
+        return leaf == this.notYetTransmitted;
+    } // method isEscape
+
+    /**
+     * Compress a whole array, for comparison with the static coder.
+     *
+     * @param data bytes to compress
+     * @return the compressed stream
+     */
+    public static byte[] encode(byte[] data) {
+        ByteArrayOutputStream buffer = new ByteArrayOutputStream(data.length / 2 + 16);
+        try (AdaptiveHuffmanOutputStream out = new AdaptiveHuffmanOutputStream(buffer)) {
+            out.write(data);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return buffer.toByteArray();
+    } // method encode
+
+    /**
+     * Decompress a whole array produced by encode.
+     *
+     * @param packed compressed stream
+     * @return the original bytes
+     * @throws IllegalArgumentException if the stream is corrupt
+     */
+    public static byte[] decode(byte[] packed) {
+        try (AdaptiveHuffmanInputStream in = new AdaptiveHuffmanInputStream(new ByteArrayInputStream(packed))) {
+            return in.readAllBytes();
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Corrupt adaptive Huffman stream", e);
+        }
+    } // method decode
+
+    /**
+     * Give a new node its parent and its number.
+     *
+     * @param node   the new node
+     * @param parent its parent
+     * @param order  its number
+     * @return the node
+     */
+    private HuffmanNode attach(HuffmanNode node, HuffmanNode parent, int order) {
+        node.setParent(parent);
+        node.setOrder(order);
+        this.byOrder[order] = node;
+        return node;
+    } // helper method attach
+
+    /**
+     * Find the highest-numbered node with the same weight as a node. Weights do
+     * not decrease with the number, so nodes of equal weight are numbered
+     * consecutively and a scan upwards finds it.
+     *
+     * @param node the node
+     * @return the leader of its weight class, possibly the node itself
+     */
+    private HuffmanNode blockLeader(HuffmanNode node) {
+        int weight = node.getFrequency();
+        int order = node.getOrder();
+        while (order + 1 < MAX_NODES && this.byOrder[order + 1].getFrequency() == weight) {
+            order++;
+        }
+        return this.byOrder[order];
+    } // helper method blockLeader
+
+    /**
+     * Exchange the places of two nodes in the tree, with their subtrees, and
+     * their numbers. Neither may be an ancestor of the other.
+     *
+     * @param a a node
+     * @param b another node
+     */
+    private void swap(HuffmanNode a, HuffmanNode b) {
+        HuffmanNode parentA = a.getParent();
+        HuffmanNode parentB = b.getParent();
+        if (parentA == parentB) {
+            HuffmanNode left = parentA.getLeft();
+            parentA.setLeft(parentA.getRight());
+            parentA.setRight(left);
+        } else {
+            if (parentA.getLeft() == a) {
+                parentA.setLeft(b);
+            } else {
+                parentA.setRight(b);
+            }
+            if (parentB.getLeft() == b) {
+                parentB.setLeft(a);
+            } else {
+                parentB.setRight(a);
+            }
+            a.setParent(parentB);
+            b.setParent(parentA);
+        }
+        int orderA = a.getOrder();
+        a.setOrder(b.getOrder());
+        b.setOrder(orderA);
+        this.byOrder[a.getOrder()] = a;
+        this.byOrder[b.getOrder()] = b;
+    } // helper method swap
+
+    /******************************* Accessors *******************************/
+
+    /** Decoders walk the tree from the root; they must not change it */
+    public HuffmanNode getRoot() {
+        return this.root;
+    }
+
+    /** Driver code: compares the adaptive coder with the two-pass static coder */
+    public static void main(String[] args) {
+        Random random = new Random(271);
+        StringBuilder text = new StringBuilder();
+        String[] words = { "the", "of", "and", "to", "in", "a", "is", "that", "for", "it", "huffman", "tree", "code" };
+        while (text.length() < 4_000_000) {
+            text.append(words[(int) (Math.pow(random.nextDouble(), 2) * words.length)]).append(' ');
+        }
+        byte[] data = text.toString().getBytes();
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            byte[] adaptive = encode(data);
+            long adaptiveEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            boolean adaptiveOk = Arrays.equals(data, decode(adaptive));
+            long adaptiveDecode = System.nanoTime() - start;
+            start = System.nanoTime();
+            byte[] fixed = HuffmanCodec.encode(data);
+            long staticEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            boolean staticOk = Arrays.equals(data, HuffmanCodec.decode(fixed));
+            long staticDecode = System.nanoTime() - start;
+            System.out.printf("adaptive: %d bytes, encode %.0f MB/s, decode %.0f MB/s, ok %b%n", adaptive.length,
+                    data.length * 1e3 / adaptiveEncode, data.length * 1e3 / adaptiveDecode, adaptiveOk);
+            System.out.printf("static:   %d bytes, encode %.0f MB/s, decode %.0f MB/s, ok %b%n", fixed.length,
+                    data.length * 1e3 / staticEncode, data.length * 1e3 / staticDecode, staticOk);
+        }
+    } // method main
+
+} // class AdaptiveHuffman
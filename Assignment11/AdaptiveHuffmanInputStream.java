@@ -0,0 +1,137 @@
+import java.io.EOFException;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * Decompresses a stream written by AdaptiveHuffmanOutputStream, byte by byte
+ * as the compressed bits arrive. It rebuilds the same code tree as the writer
+ * by applying the same update after every symbol, and reports the end of the
+ * data when it decodes END_OF_STREAM.
+ */
+public class AdaptiveHuffmanInputStream extends FilterInputStream {
+
+    /** The code tree, updated after every symbol */
+    private final AdaptiveHuffman model;
+    /** Compressed bits read but not yet decoded, right-aligned */
+    private int pending;
+    /** Number of bits in pending */
+    private int pendingBits;
+    /** Whether END_OF_STREAM has been decoded */
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param in stream of compressed bytes
+     */
+    public AdaptiveHuffmanInputStream(InputStream in) {
+        super(in);
+        this.model = new AdaptiveHuffman();
+        this.pending = 0;
+        this.pendingBits = 0;
+        this.finished = false;
+    } // constructor
+
+    /**
+     * Decode one byte.
+     *
+     * @return the byte, or -1 at the end of the data
+     * @throws IOException if the underlying stream fails or ends before
+     *                     END_OF_STREAM
+     */
+    @Override
+    public int read() throws IOException {
+        int result = -1;
+        if (!this.finished) {
+            HuffmanNode node = this.model.getRoot();
+            while (node.hasLeft()) {
+                node = this.readBits(1) == 0 ? node.getLeft() : node.getRight();
+            }
+            int symbol = node.getSymbol();
+            if (this.model.isEscape(node)) {
+                symbol = this.readBits(AdaptiveHuffman.RAW_BITS);
+                if (symbol >= AdaptiveHuffman.SYMBOLS || this.model.isKnown(symbol)) {
+                    throw new IOException("Corrupt adaptive Huffman stream: bad new symbol " + symbol);
+                }
+            }
+            this.model.update(symbol);
+            if (symbol == AdaptiveHuffman.END_OF_STREAM) {
+                this.finished = true;
+            } else {
+                result = symbol;
+            }
+        }
+        return result;
+    } // method read
+
+    /**
+     * Decode bytes into a range of an array.
+     *
+     * @param buffer where to put the bytes
+     * @param offset first index to fill
+     * @param length most bytes to decode
+     * @return number of bytes decoded, or -1 at the end of the data
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public int read(byte[] buffer, int offset, int length) throws IOException {
+        int count = 0;
+        int b = 0;
+        while (count < length && b >= 0) {
+            b = this.read();
+            if (b >= 0) {
+                buffer[offset + count++] = (byte) b;
+            }
+        }
+        if (count == 0 && length > 0) {
+            count = -1;
+        }
+        return count;
+    } // method read
+
+    /** Skipping would still need every bit decoded, so it is done by reading */
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = 0;
+        while (skipped < n && this.read() >= 0) {
+            skipped++;
+        }
+        return skipped;
+    } // method skip
+
+    /** Decoded bytes are produced on demand, so none are known to be ready */
+    @Override
+    public int available() {
+        return 0;
+    } // method available
+
+    /** Marks are not supported */
+    @Override
+    public boolean markSupported() {
+        return false;
+    } // method markSupported
+
+    /**
+     * Take bits from the compressed stream, reading more bytes as needed.
+     *
+     * @param length number of bits, at most 9
+     * @return the bits, right-aligned
+     * @throws IOException if the stream ends first
+     */
+    private int readBits(int length) throws IOException {
+        while (this.pendingBits < length) {
+            int b = this.in.read();
+            if (b < 0) {
+                throw new EOFException("Adaptive Huffman stream ended before its end marker");
+            }
+            this.pending = (this.pending << Byte.SIZE) | b;
+            this.pendingBits += Byte.SIZE;
+        }
+        this.pendingBits -= length;
+        int value = this.pending >>> this.pendingBits;
+        this.pending &= (1 << this.pendingBits) - 1;
+        return value;
+    } // helper method readBits
+
+} // class AdaptiveHuffmanInputStream
@@ -0,0 +1,120 @@
+import java.io.FilterOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Compresses the bytes written to it with adaptive Huffman coding (see
+ * AdaptiveHuffman) and passes the result on as soon as whole bytes of output
+ * are ready. There is no header and no first pass, so a live stream can be
+ * compressed as it goes: after flush, everything written so far has been sent
+ * except for at most seven bits of the last partial byte.
+ *
+ * close writes END_OF_STREAM and pads the last byte with zero bits.
+ */
+public class AdaptiveHuffmanOutputStream extends FilterOutputStream {
+
+    /** The code tree, updated after every symbol */
+    private final AdaptiveHuffman model;
+    /** Scratch space for one code, root first */
+    private final byte[] bits;
+    /** Output bits not yet sent, right-aligned */
+    private int pending;
+    /** Number of bits in pending, always below 8 between symbols */
+    private int pendingBits;
+    /** Whether END_OF_STREAM has been written */
+    private boolean finished;
+
+    /**
+     * Constructor.
+     *
+     * @param out stream that receives the compressed bytes
+     */
+    public AdaptiveHuffmanOutputStream(OutputStream out) {
+        super(out);
+        this.model = new AdaptiveHuffman();
+        this.bits = new byte[AdaptiveHuffman.MAX_NODES];
+        this.pending = 0;
+        this.pendingBits = 0;
+        this.finished = false;
+    } // constructor
+
+    /**
+     * Compress one byte.
+     *
+     * @param b the byte, in the low 8 bits
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void write(int b) throws IOException {
+        this.writeSymbol(b & 0xFF);
+    } // method write
+
+    /**
+     * Compress a range of bytes.
+     *
+     * @param data   bytes to compress
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void write(byte[] data, int offset, int length) throws IOException {
+        for (int i = offset; i < offset + length; i++) {
+            this.writeSymbol(data[i] & 0xFF);
+        }
+    } // method write
+
+    /**
+     * Write END_OF_STREAM and the padding, then close the underlying stream.
+     *
+     * @throws IOException if the underlying stream fails
+     */
+    @Override
+    public void close() throws IOException {
+        if (!this.finished) {
+            this.finished = true;
+            this.writeSymbol(AdaptiveHuffman.END_OF_STREAM);
+            if (this.pendingBits > 0) {
+                this.out.write(this.pending << (Byte.SIZE - this.pendingBits));
+                this.pendingBits = 0;
+            }
+        }
+        super.close();
+    } // method close
+
+    /**
+     * Send the code of a symbol, plus its plain bits if it is new, and update
+     * the tree.
+     *
+     * @param symbol 0 to 256
+     * @throws IOException if the underlying stream fails
+     */
+    private void writeSymbol(int symbol) throws IOException {
+        int length = this.model.code(symbol, this.bits);
+        for (int i = 0; i < length; i++) {
+            this.writeBits(this.bits[i], 1);
+        }
+        if (!this.model.isKnown(symbol)) {
+            this.writeBits(symbol, AdaptiveHuffman.RAW_BITS);
+        }
+        this.model.update(symbol);
+    } // helper method writeSymbol
+
+    /**
+     * Append bits to the output, sending every completed byte.
+     *
+     * @param value  the bits, right-aligned
+     * @param length number of bits, at most 9
+     * @throws IOException if the underlying stream fails
+     */
+    private void writeBits(int value, int length) throws IOException {
+        this.pending = (this.pending << length) | (value & ((1 << length) - 1));
+        this.pendingBits += length;
+        while (this.pendingBits >= Byte.SIZE) {
+            this.pendingBits -= Byte.SIZE;
+            this.out.write(this.pending >>> this.pendingBits);
+        }
+        this.pending &= (1 << this.pendingBits) - 1;
+    } // helper method writeBits
+
+} // class AdaptiveHuffmanOutputStream
@@ -0,0 +1,138 @@
+/**
+ * Reads bits, most significant first, from a range of a byte array written by
+ * BitWriter. Up to 64 bits are kept in a window so that a decoder can peek at
+ * the next several bits at once. Reading past the end of the range yields zero
+ * bits, which matches the padding BitWriter adds to the last byte; a decoder
+ * calls isOverrun when it is done to tell truncated input from padding.
+ */
+public class BitReader {
+
+    /** Source of the bits */
+    private final byte[] data;
+    /** Index of the first byte of the range */
+    private final int start;
+    /** Index of the next byte to load into the window */
+    private int position;
+    /** Index just past the last byte of the range */
+    private final int end;
+    /** Buffered bits, left-aligned: the next bit to read is bit 63 */
+    private long window;
+    /** Number of valid bits in the window */
+    private int available;
+
+    // Largest peek that refill can always satisfy
+    static final int MAX_PEEK = Long.SIZE - 7;
+
+    /**
+     * Constructor.
+     *
+     * @param data   bytes to read
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     */
+    public BitReader(byte[] data, int offset, int length) {
+        this.data = data;
+        this.start = offset;
+        this.position = offset;
+        this.end = offset + length;
+        this.window = 0L;
+        this.available = 0;
+    } // constructor
+
+    /** Load whole bytes into the window until it holds at least 57 bits */
+    public void refill() {
+        while (this.available <= Long.SIZE - 8) {
+            long next = 0;
+            if (this.position < this.end) {
+                next = this.data[this.position] & 0xFF;
+            }
+            this.position++;
+            this.window |= next << (Long.SIZE - 8 - this.available);
+            this.available += 8;
+        }
+    } // method refill
+
+    /**
+     * Move to any bit of the range, so that decoding can start in the middle of
+     * a stream, at a position recorded by the encoder.
+     *
+     * @param bit offset from the first bit of the range
+     */
+    public void seek(long bit) {
+        this.position = this.start + (int) (bit >>> 3);
+        this.window = 0L;
+        this.available = 0;
+        this.refill();
+        this.consume((int) (bit & 7));
+    } // method seek
+
+    /**
+     * Count the bits consumed so far.
+     *
+     * @return bits consumed since the first bit of the range
+     */
+    public long bitsRead() {
+        return 8L * (this.position - this.start) - this.available;
+    } // method bitsRead
+
+    /**
+     * Check whether more bits were consumed than the range holds, that is,
+     * whether some of them were the zero fill past its end.
+     *
+     * @return true if the reader ran past the end of the range
+     */
+    public boolean isOverrun() {
+        return this.bitsRead() > 8L * (this.end - this.start);
+    } // method isOverrun
+
+    /**
+     * Look at the next bits without consuming them. Call refill first.
+     *
+     * @param bits number of bits, 1 to 57
+     * @return the bits, right-aligned
+     */
+    public long peek(int bits) {
+        return this.window >>> (Long.SIZE - bits);
+    } // method peek
+
+    /**
+     * Drop bits that have been decoded.
+     *
+     * @param bits number of bits, at most the number available
+     */
+    public void consume(int bits) {
+        this.window <<= bits;
+        this.available -= bits;
+    } // method consume
+
+    /**
+     * Read a field of up to 57 bits.
+     *
+     * @param bits number of bits
+     * @return the bits, right-aligned
+     */
+    public long read(int bits) {
+        long value = 0;
+        if (bits > 0) {
+            this.refill();
+            value = this.peek(bits);
+            this.consume(bits);
+        }
+        return value;
+    } // method read
+
+    /**
+     * Read one bit.
+     *
+     * @return 0 or 1
+     */
+    public int readBit() {
+        if (this.available == 0) {
+            this.refill();
+        }
+        int bit = (int) (this.window >>> (Long.SIZE - 1));
+        this.consume(1);
+        return bit;
+    } // method readBit
+
+} // class BitReader
@@ -0,0 +1,117 @@
+import java.util.Arrays;
+
+/**
+ * Packs variable-length bit codes into a growing byte array, most significant
+ * bit first. Bits are collected in a 64-bit accumulator and only copied out
+ * once a whole 64-bit word is full, so writing a code costs a couple of shifts
+ * instead of one operation per bit.
+ */
+public class BitWriter {
+
+    // Bits in the accumulator, and bytes in it
+    private static final int WORD_BITS = Long.SIZE;
+    private static final int WORD_BYTES = Long.BYTES;
+
+    /** Output written so far */
+    private byte[] buffer;
+    /** Number of bytes of buffer in use */
+    private int size;
+    /** Pending bits, right-aligned: the newest bit is bit 0 */
+    private long accumulator;
+    /** Number of pending bits in the accumulator */
+    private int pending;
+
+    /**
+     * Constructor.
+     *
+     * @param initialCapacity expected output size in bytes
+     */
+    public BitWriter(int initialCapacity) {
+        this.buffer = new byte[Math.max(WORD_BYTES, initialCapacity)];
+        this.size = 0;
+        this.accumulator = 0L;
+        this.pending = 0;
+    } // constructor
+
+    /**
+     * Append the low length bits of code, most significant first.
+     *
+     * @param code   bits to write, right-aligned
+     * @param length number of bits, 0 to 64
+     */
+    public void write(long code, int length) {
+        if (length > 0) {
+            int room = WORD_BITS - this.pending;
+            if (length < room) {
+                this.accumulator = (this.accumulator << length) | (code & mask(length));
+                this.pending += length;
+            } else {
+                // Fill the accumulator with the top bits of code, flush it, and keep
+                // whatever is left of code as the start of the next word
+                int rest = length - room;
+                long head = code >>> rest;
+                if (room == WORD_BITS) {
+                    this.accumulator = head;
+                } else {
+                    this.accumulator = (this.accumulator << room) | (head & mask(room));
+                }
+                this.flushWord();
+                this.accumulator = code & mask(rest);
+                this.pending = rest;
+            }
+        }
+    } // method write
+
+    /**
+     * Pad the last partial byte with zero bits and return the output.
+     *
+     * @return a copy of the bytes written, exactly as long as needed
+     */
+    public byte[] toByteArray() {
+        byte[] result = Arrays.copyOf(this.buffer, this.size + (this.pending + 7) / 8);
+        long left = this.accumulator << (WORD_BITS - this.pending);
+        for (int i = this.size; i < result.length; i++) {
+            result[i] = (byte) (left >>> (WORD_BITS - 8));
+            left <<= 8;
+        }
+        return result;
+    } // method toByteArray
+
+    /**
+     * Number of bits written so far.
+     *
+     * @return total bits, including those still in the accumulator
+     */
+    public long bitLength() {
+        return (long) this.size * 8 + this.pending;
+    } // method bitLength
+
+    /** Copy a full accumulator into the buffer as eight big-endian bytes */
+    private void flushWord() {
+        if (this.size + WORD_BYTES > this.buffer.length) {
+            this.buffer = Arrays.copyOf(this.buffer, Math.max(2 * this.buffer.length, this.size + WORD_BYTES));
+        }
+        long word = this.accumulator;
+        for (int i = WORD_BYTES - 1; i >= 0; i--) {
+            this.buffer[this.size + i] = (byte) word;
+            word >>>= 8;
+        }
+        this.size += WORD_BYTES;
+        this.pending = 0;
+    } // method flushWord
+
+    /**
+     * A mask with the low bits set.
+     *
+     * @param bits number of bits, 0 to 64
+     * @return the mask
+     */
+    static long mask(int bits) {
+        long mask = -1L;
+        if (bits < WORD_BITS) {
+            mask = (1L << bits) - 1;
+        }
+        return mask;
+    } // method mask
+
+} // class BitWriter
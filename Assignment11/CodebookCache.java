@@ -0,0 +1,323 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+
+/**
+ * Keeps recently built Huffman code tables so that messages with nearly the
+ * same byte frequencies can share one instead of each building its own.
+ *
+ * Tables are found by a signature of the histogram: a hash of every frequent
+ * byte value with the number of binary digits of total / count, which is
+ * floor(log2(total / count)) + 1, about the length of its ideal code. Bytes of
+ * frequency 1 in 2^RARE_BITS or less count as absent, since in short messages
+ * which rare bytes happen to occur is mostly chance. Computing the signature
+ * takes one division per symbol present; building a table takes a sort, a tree
+ * and canonical codes.
+ *
+ * Each signature collects the histogram of every message looked up under it,
+ * and its table is built from that collected histogram, so the table fits the
+ * whole class of messages rather than the first one. A table is reused if it
+ * has a code for every byte of the message and makes the message at most
+ * maxPenalty larger than its entropy (or one bit per byte if that is more), a
+ * lower bound for the size with a table of its own. Otherwise the table is
+ * rebuilt from the collected histogram, which now includes the message, but
+ * not more than once per REBUILD_INTERVAL lookups of the signature as long as
+ * the table covers the message: in between, it is reused even above the
+ * penalty. The least recently used signature is dropped when the cache is
+ * full.
+ *
+ * A rebuild costs more than building a table for the message alone, since the
+ * collected histogram holds every byte seen under the signature. With a
+ * penalty so low that most tables miss it, such as 0.05 for the log lines of
+ * main, the cache gains nothing over building every table, and only the
+ * rebuild interval keeps it from being slower.
+ */
+public class CodebookCache {
+
+    /** Number of tables kept when none is given */
+    static final int DEFAULT_CAPACITY = 64;
+    /** Largest size increase accepted for reusing a table when none is given */
+    static final double DEFAULT_MAX_PENALTY = 0.15;
+    /**
+     * Bytes whose total / count has more binary digits than this are left out
+     * of signatures
+     */
+    static final int RARE_BITS = 4;
+    /**
+     * Fewest lookups of a signature between two rebuilds of its table, unless
+     * the table lacks a code for the message
+     */
+    static final int REBUILD_INTERVAL = 16;
+    /** Collected counts are halved once their total passes this, to stay in an int */
+    static final int HISTORY_LIMIT = 1 << 24;
+    // FNV-1a hashing of signatures
+    private static final long FNV_OFFSET = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    // x log2(x) for the counts of short messages, to estimate entropy without
+    // calling Math.log per symbol
+    private static final double[] X_LOG2_X = new double[4096];
+
+    static {
+        for (int x = 1; x < X_LOG2_X.length; x++) {
+            X_LOG2_X[x] = x * Math.log(x) / Math.log(2);
+        }
+    }
+
+    /**
+     * A code table of one signature, with the histogram it was built from,
+     * collected over the messages looked up under the signature.
+     */
+    static class Codebook {
+        private byte[] lengths;
+        private long[] codes;
+        private final int[] history;
+        private long historyTotal;
+        private int lookupsSinceRebuild;
+
+        /** Default constructor for a table with nothing collected yet */
+        Codebook() {
+            this.lengths = new byte[Histogram.SYMBOLS];
+            this.codes = new long[Histogram.SYMBOLS];
+            this.history = new int[Histogram.SYMBOLS];
+            this.historyTotal = 0;
+            this.lookupsSinceRebuild = 0;
+        } // default constructor
+
+        /**
+         * Add a message's counts to the collected histogram, halving the old
+         * counts first if the total would grow too large.
+         *
+         * @param frequencies count of each symbol in the message
+         * @param total       sum of the counts
+         */
+        void collect(int[] frequencies, long total) {
+            if (this.historyTotal > HISTORY_LIMIT) {
+                this.historyTotal = 0;
+                for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+                    // Keep every symbol seen so far, however rare
+                    this.history[symbol] = (this.history[symbol] + 1) / 2;
+                    this.historyTotal += this.history[symbol];
+                }
+            }
+            for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+                this.history[symbol] += frequencies[symbol];
+            }
+            this.historyTotal += total;
+        } // method collect
+
+        /** Build the table from the collected histogram, as HuffmanCodec would */
+        void rebuild() {
+            this.lengths = HuffmanCodec.limitedCodeLengths(this.history);
+            this.codes = HuffmanCodec.canonicalCodes(this.lengths);
+            this.lookupsSinceRebuild = 0;
+        } // method rebuild
+
+        /******************************* Accessors *******************************/
+
+        public byte[] getLengths() {
+            return this.lengths;
+        }
+
+        public long[] getCodes() {
+            return this.codes;
+        }
+
+        public int[] getHistory() {
+            return this.history;
+        }
+
+    } // class Codebook
+
+    /** Tables by signature, least recently used first */
+    private final LinkedHashMap<Long, Codebook> codebooks;
+    /** Largest relative size increase accepted for reusing a table */
+    private final double maxPenalty;
+    /** Lookups answered with a cached table */
+    private long hits;
+    /** Lookups that built a table, because none was cached or it cost too much */
+    private long misses;
+
+    /** Default constructor */
+    public CodebookCache() {
+        this(DEFAULT_CAPACITY, DEFAULT_MAX_PENALTY);
+    } // default constructor
+
+    /**
+     * Constructor.
+     *
+     * @param capacity   most tables kept
+     * @param maxPenalty largest relative size increase accepted for reusing a
+     *                   table, 0.02 for 2%
+     */
+    public CodebookCache(int capacity, double maxPenalty) {
+        if (capacity <= 0 || maxPenalty < 0) {
+            throw new IllegalArgumentException("Capacity must be positive and the penalty not negative");
+        }
+        this.maxPenalty = maxPenalty;
+        this.codebooks = new LinkedHashMap<>(2 * capacity, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Long, Codebook> eldest) {
+                return size() > capacity;
+            }
+        };
+        this.hits = 0;
+        this.misses = 0;
+    } // constructor
+
+    /**
+     * Find a table for a message with the given frequencies, reusing the cached
+     * one when its penalty is small enough or it was rebuilt within the last
+     * REBUILD_INTERVAL lookups, and rebuilding it otherwise. Every
+     * symbol that occurs gets a code either way. The table belongs to the
+     * cache and may be rebuilt by a later lookup, so it should be used before
+     * the next one.
+     *
+     * @param frequencies count of each symbol in the message
+     * @return the table
+     */
+    public Codebook lookup(int[] frequencies) {
+        long total = 0;
+        for (int frequency : frequencies) {
+            total += frequency;
+        }
+        Long signature = signature(frequencies, total);
+        Codebook codebook = this.codebooks.get(signature);
+        if (codebook == null) {
+            codebook = new Codebook();
+            this.codebooks.put(signature, codebook);
+        }
+        // One pass for the size with the cached table, whether it has every
+        // symbol, and the entropy: total log2(total) - sum of f log2(f)
+        byte[] lengths = codebook.getLengths();
+        boolean covered = true;
+        long cachedBits = 0;
+        double entropyBits = xLog2x(total);
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            int frequency = frequencies[symbol];
+            if (frequency > 0) {
+                covered &= lengths[symbol] != 0;
+                cachedBits += (long) frequency * lengths[symbol];
+                entropyBits -= xLog2x(frequency);
+            }
+        }
+        codebook.collect(frequencies, total);
+        // No Huffman code spends less than a bit per byte
+        double ownBits = Math.max(entropyBits, total);
+        boolean cheap = cachedBits <= Math.ceil(ownBits * (1 + this.maxPenalty));
+        boolean recent = codebook.lookupsSinceRebuild < REBUILD_INTERVAL;
+        if (covered && (cheap || recent)) {
+            this.hits++;
+            codebook.lookupsSinceRebuild++;
+        } else {
+            this.misses++;
+            codebook.rebuild();
+        }
+        return codebook;
+    } // method lookup
+
+    /** Forget every table and reset the counters */
+    public void clear() {
+        this.codebooks.clear();
+        this.hits = 0;
+        this.misses = 0;
+    } // method clear
+
+    /**
+     * Fraction of lookups answered from the cache.
+     *
+     * @return hits / lookups, 0 before the first lookup
+     */
+    public double hitRate() {
+        long lookups = this.hits + this.misses;
+        return lookups == 0 ? 0.0 : (double) this.hits / lookups;
+    } // method hitRate
+
+    /**
+     * Quantize a histogram to a key: a 64-bit FNV-1a hash of every frequent
+     * symbol with the whole number of bits of its ideal code. Different
+     * signatures with the same hash share a table, which the penalty check
+     * still guards.
+     *
+     * @param frequencies count of each symbol
+     * @param total       sum of the counts
+     * @return the signature
+     */
+    static long signature(int[] frequencies, long total) {
+        long hash = FNV_OFFSET;
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            if (frequencies[symbol] > 0) {
+                int bits = Long.SIZE - Long.numberOfLeadingZeros(total / frequencies[symbol]);
+                if (bits <= RARE_BITS) {
+                    hash = (hash ^ (symbol << Byte.SIZE | bits)) * FNV_PRIME;
+                }
+            }
+        }
+        return hash;
+    } // method signature
+
+    /**
+     * Compute x log2(x), from a table for small x.
+     *
+     * @param x a count, 0 or more
+     * @return x log2(x), 0 for 0
+     */
+    private static double xLog2x(long x) {
+        return x < X_LOG2_X.length ? X_LOG2_X[(int) x] : x * Math.log(x) / Math.log(2);
+    } // helper method xLog2x
+
+    /******************************* Accessors *******************************/
+
+    public long getHits() {
+        return this.hits;
+    }
+
+    public long getMisses() {
+        return this.misses;
+    }
+
+    public int size() {
+        return this.codebooks.size();
+    }
+
+    /** Driver code: encodes many short, similar messages with and without a cache */
+    public static void main(String[] args) {
+        Random random = new Random(271);
+        String[] levels = { "INFO", "INFO", "INFO", "WARN", "ERROR" };
+        byte[][] messages = new byte[200_000][];
+        for (int i = 0; i < messages.length; i++) {
+            messages[i] = (levels[random.nextInt(levels.length)] + " request " + random.nextInt(100_000)
+                    + " served in " + random.nextInt(500) + " ms").getBytes(StandardCharsets.UTF_8);
+        }
+        byte[][] packed = new byte[messages.length][];
+        for (double penalty : new double[] { 0.05, DEFAULT_MAX_PENALTY, 0.30 }) {
+            CodebookCache cache = new CodebookCache(DEFAULT_CAPACITY, penalty);
+            for (int round = 0; round < 3; round++) {
+                cache.clear();
+                long start = System.nanoTime();
+                long plainBits = 0;
+                for (byte[] message : messages) {
+                    plainBits += 8L * (HuffmanCodec.encode(message, 0, message.length).length - HuffmanCodec.HEADER_BYTES);
+                }
+                long plain = System.nanoTime() - start;
+                start = System.nanoTime();
+                for (int i = 0; i < messages.length; i++) {
+                    packed[i] = HuffmanCodec.encode(messages[i], 0, messages[i].length, cache);
+                }
+                long cached = System.nanoTime() - start;
+                long cachedBits = 0;
+                boolean ok = true;
+                for (int i = 0; i < messages.length; i++) {
+                    cachedBits += 8L * (packed[i].length - HuffmanCodec.HEADER_BYTES);
+                    ok &= Arrays.equals(messages[i], HuffmanCodec.decode(packed[i]));
+                }
+                System.out.printf("penalty %.2f: no cache %.2f us/message, cache %.2f us/message, %.1f%% hits, "
+                        + "codes %.1f%% larger, round trip ok %b%n", penalty, plain / 1e3 / messages.length,
+                        cached / 1e3 / messages.length, 100 * cache.hitRate(),
+                        100.0 * (cachedBits - plainBits) / plainBits, ok);
+            }
+        }
+    } // method main
+
+} // class CodebookCache
@@ -0,0 +1,27 @@
+/**
+ * Compresses a block of bytes on its own, so that coders can be swapped for
+ * one another, per block, by HuffmanFileCompressor. Each coder's output must
+ * hold everything its decode needs, including the original length.
+ */
+public interface EntropyCoder {
+
+    /**
+     * Compress a range of a byte array.
+     *
+     * @param data   bytes to compress
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @return compressed bytes
+     */
+    byte[] encode(byte[] data, int offset, int length);
+
+    /**
+     * Decompress bytes produced by encode.
+     *
+     * @param packed compressed bytes
+     * @return the original bytes
+     * @throws IllegalArgumentException if packed is not valid encoder output
+     */
+    byte[] decode(byte[] packed);
+
+} // interface EntropyCoder
@@ -0,0 +1,258 @@
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * A Huffman tree stored in one short[] instead of linked HuffmanNode objects.
+ *
+ * Internal node i keeps its two children next to each other, at 2i (bit 0)
+ * and 2i + 1 (bit 1), so one step of decoding is children[2 * node + bit],
+ * with no branch on the bit and no reference to follow. A child with the high
+ * bit (LEAF) set is a leaf and holds its symbol in the low bits; otherwise it
+ * is the number of an internal node. The root is internal node 0, or a leaf on
+ * its own for a single-symbol tree. Leaves are told apart by the flag and not
+ * by their symbol, so symbol 0 is a symbol like any other.
+ *
+ * A tree of 256 symbols has 255 internal nodes, which take 1020 bytes: about
+ * 16 cache lines, against 511 HuffmanNode objects scattered over the heap.
+ */
+public class FlatHuffmanTree {
+
+    /** Flag of a child that is a leaf */
+    static final int LEAF = 0x8000;
+    /** Low bits of a leaf: its symbol */
+    static final int SYMBOL_MASK = 0x7FFF;
+    /** Child that no code leads to, in a tree built from incomplete lengths */
+    static final short MISSING = (short) 0xFFFF;
+
+    /** Two children per internal node */
+    private final short[] children;
+    /** The root: internal node 0, a leaf, or MISSING for an empty tree */
+    private final short root;
+
+    /**
+     * Constructor, used by the static builders.
+     *
+     * @param children two children per internal node
+     * @param root     the root entry
+     */
+    private FlatHuffmanTree(short[] children, short root) {
+        this.children = children;
+        this.root = root;
+    } // constructor
+
+    /**
+     * Flatten a linked Huffman tree. Nodes without children are leaves.
+     *
+     * @param root root of the tree, or null for an empty tree
+     * @return the flat tree
+     * @throws IllegalArgumentException if a symbol does not fit in 15 bits or a
+     *                                  node has only one child
+     */
+    public static FlatHuffmanTree fromTree(HuffmanNode root) {
+        if (root == null) {
+            return new FlatHuffmanTree(new short[0], MISSING);
+        }
+        // Count internal nodes, then number them in the order they are visited
+        int internal = 0;
+        HuffmanNode[] stack = new HuffmanNode[16];
+        int top = 0;
+        stack[top++] = root;
+        while (top > 0) {
+            HuffmanNode node = stack[--top];
+            if (node.hasLeft() != node.hasRight()) {
+                throw new IllegalArgumentException("Node with a single child");
+            }
+            if (node.hasLeft()) {
+                internal++;
+                if (top + 2 > stack.length) {
+                    stack = Arrays.copyOf(stack, 2 * stack.length);
+                }
+                stack[top++] = node.getLeft();
+                stack[top++] = node.getRight();
+            }
+        }
+        short[] children = new short[2 * internal];
+        if (internal == 0) {
+            return new FlatHuffmanTree(children, leaf(root.getSymbol()));
+        }
+        HuffmanNode[] nodes = new HuffmanNode[internal];
+        nodes[0] = root;
+        int next = 1;
+        for (int i = 0; i < internal; i++) {
+            HuffmanNode[] pair = { nodes[i].getLeft(), nodes[i].getRight() };
+            for (int bit = 0; bit < 2; bit++) {
+                if (pair[bit].hasLeft()) {
+                    nodes[next] = pair[bit];
+                    children[2 * i + bit] = (short) next++;
+                } else {
+                    children[2 * i + bit] = leaf(pair[bit].getSymbol());
+                }
+            }
+        }
+        return new FlatHuffmanTree(children, (short) 0);
+    } // method fromTree
+
+    /**
+     * Build the tree of the canonical code with the given lengths, the code
+     * HuffmanCodec uses, without creating any HuffmanNode. Children that no code
+     * reaches are MISSING.
+     *
+     * @param lengths code length of each symbol, 0 for unused symbols
+     * @return the flat tree
+     * @throws IllegalArgumentException if the lengths do not form a prefix code
+     */
+    public static FlatHuffmanTree fromCodeLengths(byte[] lengths) {
+        int[] symbols = HuffmanCodec.sortedSymbols(lengths);
+        long[] codes = HuffmanCodec.canonicalCodes(lengths);
+        if (symbols.length == 0) {
+            return new FlatHuffmanTree(new short[0], MISSING);
+        }
+        if ((lengths[symbols[symbols.length - 1]] & 0xFF) >= Long.SIZE) {
+            throw new IllegalArgumentException("Code lengths above 63 bits");
+        }
+        // A complete code of n symbols has n - 1 internal nodes; an incomplete
+        // one can have more, so the array grows when needed
+        short[] children = new short[2 * Math.max(1, symbols.length - 1)];
+        Arrays.fill(children, MISSING);
+        int internal = 1;
+        for (int symbol : symbols) {
+            int length = lengths[symbol] & 0xFF;
+            long code = codes[symbol];
+            int node = 0;
+            for (int depth = length - 1; depth > 0; depth--) {
+                int slot = 2 * node + (int) ((code >>> depth) & 1);
+                if (children[slot] == MISSING) {
+                    if (internal == SYMBOL_MASK) {
+                        throw new IllegalArgumentException("Too many internal nodes for a flat tree");
+                    }
+                    if (2 * internal == children.length) {
+                        children = Arrays.copyOf(children, 2 * children.length);
+                        Arrays.fill(children, 2 * internal, children.length, MISSING);
+                    }
+                    children[slot] = (short) internal++;
+                } else if ((children[slot] & LEAF) != 0) {
+                    throw new IllegalArgumentException("Code lengths do not form a prefix code");
+                }
+                node = children[slot];
+            }
+            int slot = 2 * node + (int) (code & 1);
+            if (children[slot] != MISSING || code >>> length != 0) {
+                throw new IllegalArgumentException("Code lengths do not form a prefix code");
+            }
+            children[slot] = leaf((char) symbol);
+        }
+        return new FlatHuffmanTree(Arrays.copyOf(children, 2 * internal), (short) 0);
+    } // method fromCodeLengths
+
+    /**
+     * Decode one symbol, one bit at a time.
+     *
+     * @param reader bits to decode
+     * @return the symbol
+     * @throws IllegalArgumentException if the bits lead to a missing child
+     */
+    public int decodeSymbol(BitReader reader) {
+        int entry = this.root;
+        while ((entry & LEAF) == 0) {
+            entry = this.children[2 * entry + reader.readBit()];
+        }
+        int symbol = entry & SYMBOL_MASK;
+        if (symbol == SYMBOL_MASK) {
+            throw new IllegalArgumentException("Invalid code");
+        }
+        return symbol;
+    } // method decodeSymbol
+
+    /**
+     * Decode a run of byte symbols.
+     *
+     * @param reader bits to decode
+     * @param output receives the symbols
+     * @param offset first position to fill
+     * @param length number of symbols to decode
+     * @throws IllegalArgumentException if the bits lead to a missing child
+     */
+    public void decode(BitReader reader, byte[] output, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            output[i] = (byte) this.decodeSymbol(reader);
+        }
+    } // method decode
+
+    /**
+     * Make the leaf entry of a symbol.
+     *
+     * @param symbol the symbol
+     * @return the entry
+     * @throws IllegalArgumentException if the symbol does not fit in 15 bits
+     */
+    private static short leaf(char symbol) {
+        if (symbol >= SYMBOL_MASK) {
+            throw new IllegalArgumentException("Symbol " + (int) symbol + " does not fit in a flat tree");
+        }
+        return (short) (LEAF | symbol);
+    } // helper method leaf
+
+    /******************************* Accessors *******************************/
+
+    public int getInternalNodes() {
+        return this.children.length / 2;
+    }
+
+    public int getSizeInBytes() {
+        return this.children.length * Short.BYTES;
+    }
+
+    /** Driver code: decodes the same bits with the linked and the flat tree */
+    public static void main(String[] args) {
+        Random random = new Random(271);
+        int[] frequencies = new int[256];
+        for (int symbol = 0; symbol < 256; symbol++) {
+            frequencies[symbol] = 1 + (int) (Math.pow(random.nextDouble(), 4) * 4096);
+        }
+        // Symbol 0 is the most frequent, which the old leaf test would have lost
+        frequencies[0] = 50_000;
+        HuffmanNode tree = HuffmanEncodingWithHeap.buildTree(HuffmanEncodingWithHeap.buildForest(frequencies));
+        long[] codeBits = new long[256];
+        byte[] codeLength = new byte[256];
+        HuffmanEncodingWithHeap.createCodeTable(tree, codeBits, codeLength);
+        String[] codes = HuffmanEncodingWithHeap.createEncodingTable(tree);
+        System.out.println("Code of symbol 0: " + codes[0]);
+
+        byte[] data = new byte[4 << 20];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) (random.nextInt(4) == 0 ? 0 : random.nextInt(256));
+        }
+        BitWriter writer = new BitWriter(data.length);
+        for (byte b : data) {
+            writer.write(codeBits[b & 0xFF], codeLength[b & 0xFF]);
+        }
+        byte[] packed = writer.toByteArray();
+        FlatHuffmanTree flat = fromTree(tree);
+        System.out.printf("Flat tree: %d internal nodes in %d bytes%n", flat.getInternalNodes(), flat.getSizeInBytes());
+        byte[] output = new byte[data.length];
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            BitReader reader = new BitReader(packed, 0, packed.length);
+            for (int i = 0; i < output.length; i++) {
+                HuffmanNode node = tree;
+                while (node.hasLeft()) {
+                    node = reader.readBit() == 0 ? node.getLeft() : node.getRight();
+                }
+                output[i] = (byte) node.getSymbol();
+            }
+            long linked = System.nanoTime() - start;
+            boolean linkedOk = Arrays.equals(data, output);
+            start = System.nanoTime();
+            flat.decode(new BitReader(packed, 0, packed.length), output, 0, output.length);
+            long flatTime = System.nanoTime() - start;
+            System.out.printf("linked %.0f MB/s (ok %b), flat %.0f MB/s (ok %b)%n", data.length * 1e3 / linked,
+                    linkedOk, data.length * 1e3 / flatTime, Arrays.equals(data, output));
+        }
+        byte[] canonical = HuffmanCodec.encode(data);
+        byte[] lengths = Arrays.copyOfRange(canonical, 1 + Integer.BYTES, HuffmanCodec.HEADER_BYTES);
+        BitReader reader = new BitReader(canonical, HuffmanCodec.HEADER_BYTES, canonical.length - HuffmanCodec.HEADER_BYTES);
+        fromCodeLengths(lengths).decode(reader, output, 0, output.length);
+        System.out.println("Tree from code lengths decodes HuffmanCodec output: " + Arrays.equals(data, output));
+    } // method main
+
+} // class FlatHuffmanTree
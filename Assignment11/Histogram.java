@@ -0,0 +1,250 @@
+import java.nio.ByteBuffer;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Counts how often each byte value occurs, as fast as the hardware allows.
+ *
+ * A plain loop that does counts[b]++ for every byte stalls on text, where the
+ * same few symbols come up again and again: each increment has to wait for the
+ * previous store to the same counter. Here consecutive bytes go to STRIPES
+ * separate count tables, so neighbouring increments never touch the same
+ * counter, and the tables are added up at the end. Large arrays can also be
+ * split across a ForkJoinPool, and for very large inputs the counts can be
+ * estimated from a prefix.
+ */
+public class Histogram {
+
+    /** Number of distinct byte values */
+    static final int SYMBOLS = 256;
+    /** Number of interleaved count tables */
+    static final int STRIPES = 4;
+    /** Pieces smaller than this are counted by a single task */
+    static final int PARALLEL_THRESHOLD = 1 << 18;
+    // Bytes copied at a time out of buffers without a backing array
+    private static final int CHUNK = 8192;
+
+    private static volatile long blackhole;
+
+    /** Utility class, not meant to be instantiated */
+    private Histogram() {
+    } // private constructor
+
+    /**
+     * Count the bytes of an array.
+     *
+     * @param data bytes to count
+     * @return count of each of the 256 byte values
+     */
+    public static int[] count(byte[] data) {
+        return count(data, 0, data.length);
+    } // method count
+
+    /**
+     * Count the bytes of a range of an array.
+     *
+     * @param data   bytes to count
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @return count of each of the 256 byte values
+     */
+    public static int[] count(byte[] data, int offset, int length) {
+        int[][] stripes = new int[STRIPES][SYMBOLS];
+        countInto(data, offset, length, stripes);
+        return merge(stripes);
+    } // method count
+
+    /**
+     * Count the bytes between a buffer's position and limit, without moving its
+     * position. Heap buffers are counted in place; direct and mapped buffers are
+     * copied out a chunk at a time.
+     *
+     * @param buffer bytes to count
+     * @return count of each of the 256 byte values
+     */
+    public static int[] count(ByteBuffer buffer) {
+        int[] counts;
+        if (buffer.hasArray()) {
+            counts = count(buffer.array(), buffer.arrayOffset() + buffer.position(), buffer.remaining());
+        } else {
+            int[][] stripes = new int[STRIPES][SYMBOLS];
+            ByteBuffer view = buffer.duplicate();
+            byte[] chunk = new byte[Math.min(CHUNK, view.remaining())];
+            while (view.hasRemaining()) {
+                int length = Math.min(chunk.length, view.remaining());
+                view.get(chunk, 0, length);
+                countInto(chunk, 0, length, stripes);
+            }
+            counts = merge(stripes);
+        }
+        return counts;
+    } // method count
+
+    /**
+     * Count the bytes of an array with the work split across a pool. The array
+     * is halved recursively until the pieces are below PARALLEL_THRESHOLD; each
+     * piece is counted with striped tables and the results are added up as the
+     * tasks join.
+     *
+     * @param data bytes to count
+     * @param pool runs the counting tasks
+     * @return count of each of the 256 byte values
+     */
+    public static int[] countParallel(byte[] data, ForkJoinPool pool) {
+        return pool.invoke(new CountTask(data, 0, data.length));
+    } // method countParallel
+
+    /**
+     * Estimate the counts of a range from its first sampleLength bytes, scaled up
+     * to the length of the range. Every value seen in the sample gets a count of
+     * at least 1; values that only occur after the sample get 0, so a code built
+     * from the estimate can only encode the range if the sample saw every value.
+     *
+     * @param data         bytes to count
+     * @param offset       first byte of the range
+     * @param length       number of bytes in the range
+     * @param sampleLength number of bytes to actually count
+     * @return estimated count of each of the 256 byte values; exact if the range
+     *         is no longer than the sample
+     */
+    public static int[] estimate(byte[] data, int offset, int length, int sampleLength) {
+        int[] counts;
+        if (sampleLength >= length) {
+            counts = count(data, offset, length);
+        } else {
+            counts = count(data, offset, sampleLength);
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                if (counts[symbol] > 0) {
+                    counts[symbol] = (int) Math.max(1, (long) counts[symbol] * length / sampleLength);
+                }
+            }
+        }
+        return counts;
+    } // method estimate
+
+    /**
+     * Add the bytes of a range to striped count tables, byte i going to table
+     * i mod STRIPES.
+     *
+     * @param data    bytes to count
+     * @param offset  first byte of the range
+     * @param length  number of bytes in the range
+     * @param stripes STRIPES tables of 256 counts
+     */
+    private static void countInto(byte[] data, int offset, int length, int[][] stripes) {
+        int[] counts0 = stripes[0];
+        int[] counts1 = stripes[1];
+        int[] counts2 = stripes[2];
+        int[] counts3 = stripes[3];
+        int end = offset + length;
+        int i = offset;
+        for (int unrolledEnd = end - (STRIPES - 1); i < unrolledEnd; i += STRIPES) {
+            counts0[data[i] & 0xFF]++;
+            counts1[data[i + 1] & 0xFF]++;
+            counts2[data[i + 2] & 0xFF]++;
+            counts3[data[i + 3] & 0xFF]++;
+        }
+        for (; i < end; i++) {
+            counts0[data[i] & 0xFF]++;
+        }
+    } // helper method countInto
+
+    /**
+     * Add up striped count tables.
+     *
+     * @param stripes STRIPES tables of 256 counts
+     * @return the total count of each byte value
+     */
+    private static int[] merge(int[][] stripes) {
+        int[] counts = new int[SYMBOLS];
+        for (int[] stripe : stripes) {
+            for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                counts[symbol] += stripe[symbol];
+            }
+        }
+        return counts;
+    } // helper method merge
+
+    /** Counts one piece of an array, splitting it further if it is large */
+    private static class CountTask extends RecursiveTask<int[]> {
+        // Tasks are Serializable through ForkJoinTask
+        private static final long serialVersionUID = 1L;
+        private final byte[] data;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor.
+         *
+         * @param data bytes to count
+         * @param from first byte of the piece
+         * @param to   index just past the piece
+         */
+        CountTask(byte[] data, int from, int to) {
+            this.data = data;
+            this.from = from;
+            this.to = to;
+        } // constructor
+
+        @Override
+        protected int[] compute() {
+            int[] counts;
+            if (this.to - this.from <= PARALLEL_THRESHOLD) {
+                counts = count(this.data, this.from, this.to - this.from);
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                CountTask left = new CountTask(this.data, this.from, middle);
+                left.fork();
+                counts = new CountTask(this.data, middle, this.to).compute();
+                int[] leftCounts = left.join();
+                for (int symbol = 0; symbol < SYMBOLS; symbol++) {
+                    counts[symbol] += leftCounts[symbol];
+                }
+            }
+            return counts;
+        } // method compute
+    } // class CountTask
+
+    /**
+     * Count with a single table, the way countFrequency does, for comparison.
+     *
+     * @param data bytes to count
+     * @return count of each of the 256 byte values
+     */
+    private static int[] countSimple(byte[] data) {
+        int[] counts = new int[SYMBOLS];
+        for (byte b : data) {
+            counts[b & 0xFF]++;
+        }
+        return counts;
+    } // helper method countSimple
+
+    /** Driver code: times the counting methods on skewed, text-like data */
+    public static void main(String[] args) {
+        byte[] data = new byte[64 << 20];
+        Random random = new Random(271);
+        for (int i = 0; i < data.length; i++) {
+            // Mostly spaces and e's, like English text at its most repetitive
+            data[i] = (byte) ("  eeeetaoin".charAt((int) (Math.pow(random.nextDouble(), 3) * 11)));
+        }
+        ForkJoinPool pool = ForkJoinPool.commonPool();
+        long sink = 0;
+        for (int round = 0; round < 5; round++) {
+            long start = System.nanoTime();
+            sink += countSimple(data)['e'];
+            long simple = System.nanoTime();
+            sink += count(data)['e'];
+            long striped = System.nanoTime();
+            sink += countParallel(data, pool)['e'];
+            long parallel = System.nanoTime();
+            System.out.printf("single table %6.0f MB/s   striped %6.0f MB/s   parallel %6.0f MB/s%n",
+                    data.length * 1e3 / (simple - start), data.length * 1e3 / (striped - simple),
+                    data.length * 1e3 / (parallel - striped));
+        }
+        int[] estimated = estimate(data, 0, data.length, 1 << 20);
+        System.out.printf("Estimated count of 'e' from 1 MB: %d (exact: %d)%n", estimated['e'], count(data)['e']);
+        blackhole = sink;
+    } // method main
+
+} // class Histogram
@@ -0,0 +1,368 @@
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Workload suite comparing HuffmanEncoding (a forest scanned for the two
+ * smallest trees) with HuffmanEncodingWithHeap (a MinHeap), on reproducible
+ * corpora rather than the single line in their main methods.
+ *
+ * For every corpus it measures each step of both classes: countFrequency,
+ * buildForest, buildTree (which consumes its forest, so a fresh forest is built
+ * and counted with it), createEncodingTable, and the whole encode from message
+ * to code length. Each step reports time, bytes allocated and garbage
+ * collections per operation, where an operation is one byte of the message for
+ * countFrequency and encode, and one table for the others (built
+ * TABLES_PER_RUN times per run). Each measurement is repeated after a few
+ * warm-up rounds so the JIT has settled. Finally it prints the compression
+ * ratio of each class on each corpus.
+ *
+ * Corpora, all generated from a fixed seed:
+ *
+ * <pre>
+ * english   words drawn by a Zipf law from a small vocabulary, with punctuation
+ * logs      timestamped log lines with levels, request ids and durations
+ * random    uniformly random bytes, which Huffman codes cannot compress
+ * single    one repeated symbol, whose code is empty
+ * </pre>
+ *
+ * Options (all optional):
+ *
+ * <pre>
+ * --size 1048576                   characters per corpus
+ * --corpora english,logs,random,single
+ * --warmup 3 --iterations 10       rounds per measurement
+ * </pre>
+ */
+public class HuffmanBenchmark {
+
+    // Seed for every random choice, so runs are reproducible
+    private static final long SEED = 271L;
+    // Exponent of the Zipf distribution of English words
+    private static final double ZIPF_EXPONENT = 1.0;
+    // Bits in an uncompressed character
+    private static final int BITS_PER_BYTE = 8;
+    // Tables built per run of a phase that builds tables, so runs are long
+    // enough to time
+    private static final int TABLES_PER_RUN = 200;
+    // Most common English words, by rank
+    private static final String[] WORDS = { "the", "of", "and", "to", "a", "in", "is", "it", "you", "that", "he",
+            "was", "for", "on", "are", "with", "as", "his", "they", "be", "at", "one", "have", "this", "from", "or",
+            "had", "by", "word", "but", "what", "some", "we", "can", "out", "other", "were", "all", "there", "when",
+            "up", "use", "your", "how", "said", "an", "each", "she", "which", "do", "their", "time", "if", "will",
+            "way", "about", "many", "then", "them", "write", "would", "like", "so", "these", "her", "long", "make",
+            "thing", "see", "him", "two", "has", "look", "more", "day", "could", "go", "come", "did", "number",
+            "sound", "no", "most", "people", "my", "over", "know", "water", "than", "call", "first", "who", "may" };
+    // Log levels, weighted by repetition
+    private static final String[] LEVELS = { "INFO", "INFO", "INFO", "INFO", "DEBUG", "WARN", "ERROR" };
+
+    /** Settings parsed from the command line */
+    private int size = 1 << 20;
+    private String[] corpora = { "english", "logs", "random", "single" };
+    private int warmup = 3;
+    private int iterations = 10;
+
+    private static volatile long blackhole;
+
+    /** Allocation counter of the current thread, when the JVM offers one */
+    private final com.sun.management.ThreadMXBean threads;
+
+    /** Default constructor */
+    public HuffmanBenchmark() {
+        java.lang.management.ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (bean instanceof com.sun.management.ThreadMXBean) {
+            this.threads = (com.sun.management.ThreadMXBean) bean;
+        } else {
+            this.threads = null;
+        }
+    } // default constructor
+
+    /**
+     * Generate one corpus.
+     *
+     * @param corpus english, logs, random or single
+     * @param size   number of characters
+     * @return the corpus; every character is below 256
+     */
+    private static String generate(String corpus, int size) {
+        Random random = new Random(SEED);
+        StringBuilder text = new StringBuilder(size + 100);
+        switch (corpus) {
+            case "english":
+                double[] cumulative = new double[WORDS.length];
+                double total = 0.0;
+                for (int rank = 0; rank < WORDS.length; rank++) {
+                    total += 1.0 / Math.pow(rank + 1, ZIPF_EXPONENT);
+                    cumulative[rank] = total;
+                }
+                boolean startOfSentence = true;
+                while (text.length() < size) {
+                    String word = WORDS[zipfRank(cumulative, random.nextDouble() * total)];
+                    if (startOfSentence) {
+                        word = Character.toUpperCase(word.charAt(0)) + word.substring(1);
+                    }
+                    text.append(word);
+                    int end = random.nextInt(12);
+                    startOfSentence = end == 0;
+                    text.append(end == 0 ? ". " : end == 1 ? ", " : " ");
+                }
+                break;
+            case "logs":
+                long millis = 1_700_000_000_000L;
+                while (text.length() < size) {
+                    millis += random.nextInt(1000);
+                    text.append(millis).append(' ').append(LEVELS[random.nextInt(LEVELS.length)])
+                            .append(" [worker-").append(random.nextInt(16)).append("] request ")
+                            .append(Long.toHexString(random.nextLong())).append(" served in ")
+                            .append(random.nextInt(500)).append(" ms\n");
+                }
+                break;
+            case "random":
+                while (text.length() < size) {
+                    text.append((char) random.nextInt(256));
+                }
+                break;
+            case "single":
+                while (text.length() < size) {
+                    text.append('a');
+                }
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown corpus " + corpus);
+        }
+        text.setLength(size);
+        return text.toString();
+    } // method generate
+
+    /**
+     * Find the Zipf rank whose cumulative weight first reaches a target.
+     *
+     * @param cumulative running totals of the rank weights
+     * @param target     value between 0 and the total weight
+     * @return the rank
+     */
+    private static int zipfRank(double[] cumulative, double target) {
+        int position = Arrays.binarySearch(cumulative, target);
+        if (position < 0) {
+            position = -position - 1;
+        }
+        return Math.min(position, cumulative.length - 1);
+    } // method zipfRank
+
+    /** One kind of measured work */
+    private interface Phase {
+        /**
+         * Run the work once.
+         *
+         * @return a value derived from the work, so the JIT cannot skip it
+         */
+        long run();
+    } // interface Phase
+
+    /**
+     * Time a phase: run it warmup times, then iterations times while counting
+     * nanoseconds, allocated bytes and collections, and print one result row.
+     *
+     * @param label     corpus and class being measured
+     * @param name      name of the phase
+     * @param opsPerRun operations one run performs
+     * @param unit      what an operation is
+     * @param phase     the work
+     */
+    private void measure(String label, String name, long opsPerRun, String unit, Phase phase) {
+        long sink = 0;
+        for (int i = 0; i < this.warmup; i++) {
+            sink += phase.run();
+        }
+        long bytesBefore = this.allocatedBytes();
+        long gcBefore = collections();
+        long start = System.nanoTime();
+        for (int i = 0; i < this.iterations; i++) {
+            sink += phase.run();
+        }
+        long nanos = System.nanoTime() - start;
+        long bytes = this.allocatedBytes() - bytesBefore;
+        long gcs = collections() - gcBefore;
+        double ops = (double) opsPerRun * this.iterations;
+        blackhole = sink;
+        System.out.printf("%-16s %-20s %12.2f %12.2f %6d  per %s%n", label, name, nanos / ops, bytes / ops, gcs, unit);
+    } // method measure
+
+    /**
+     * Bytes allocated so far by the current thread.
+     *
+     * @return the counter, or 0 if the JVM does not offer one
+     */
+    private long allocatedBytes() {
+        long bytes = 0;
+        if (this.threads != null) {
+            bytes = this.threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return bytes;
+    } // method allocatedBytes
+
+    /**
+     * Collections run so far by all collectors.
+     *
+     * @return total collection count
+     */
+    private static long collections() {
+        long count = 0;
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, collector.getCollectionCount());
+        }
+        return count;
+    } // method collections
+
+    /**
+     * Encode with HuffmanEncoding from message to code length, the work of its
+     * encode method without the printing.
+     *
+     * @param message text to encode
+     * @return compressed length in bits
+     */
+    private static long encodeScan(String message) {
+        int[] frequencies = HuffmanEncoding.countFrequency(message);
+        HuffmanNode root = HuffmanEncoding.buildTree(HuffmanEncoding.buildForest(frequencies));
+        return HuffmanEncoding.computeCompressionLength(message, HuffmanEncoding.createEncodingTable(root));
+    } // method encodeScan
+
+    /**
+     * Encode with HuffmanEncodingWithHeap from message to code length, the work
+     * of its encode method without the printing.
+     *
+     * @param message text to encode
+     * @return compressed length in bits
+     */
+    private static long encodeHeap(String message) {
+        int[] frequencies = HuffmanEncodingWithHeap.countFrequency(message);
+        HuffmanNode root = HuffmanEncodingWithHeap.buildTree(HuffmanEncodingWithHeap.buildForest(frequencies));
+        return HuffmanEncodingWithHeap.computeCompressionLength(message,
+                HuffmanEncodingWithHeap.createEncodingTable(root));
+    } // method encodeHeap
+
+    /** Run every configured corpus */
+    public void run() {
+        System.out.printf("%-16s %-20s %12s %12s %6s%n", "Workload", "Phase", "ns/op", "bytes/op", "GCs");
+        String[] messages = new String[this.corpora.length];
+        for (int i = 0; i < this.corpora.length; i++) {
+            messages[i] = generate(this.corpora[i], this.size);
+            this.runScan(this.corpora[i] + "/scan", messages[i]);
+            this.runHeap(this.corpora[i] + "/heap", messages[i]);
+        }
+        System.out.printf("%n%-16s %12s %12s %8s %8s%n", "Corpus", "bytes", "bits/byte", "scan", "heap");
+        for (int i = 0; i < this.corpora.length; i++) {
+            long scanBits = encodeScan(messages[i]);
+            long heapBits = encodeHeap(messages[i]);
+            long rawBits = (long) messages[i].length() * BITS_PER_BYTE;
+            System.out.printf("%-16s %12d %12.3f %7.1f%% %7.1f%%%n", this.corpora[i], messages[i].length(),
+                    (double) heapBits / messages[i].length(), 100.0 * scanBits / rawBits, 100.0 * heapBits / rawBits);
+        }
+    } // method run
+
+    /**
+     * Measure every step of HuffmanEncoding on one corpus.
+     *
+     * @param label   corpus and class
+     * @param message the corpus
+     */
+    private void runScan(String label, String message) {
+        this.measure(label, "countFrequency", message.length(), "byte",
+                () -> HuffmanEncoding.countFrequency(message)[' ']);
+        int[] frequencies = HuffmanEncoding.countFrequency(message);
+        this.measure(label, "buildForest", TABLES_PER_RUN, "table", () -> {
+            long sink = 0;
+            for (int i = 0; i < TABLES_PER_RUN; i++) {
+                sink += HuffmanEncoding.buildForest(frequencies).size();
+            }
+            return sink;
+        });
+        this.measure(label, "buildForest+Tree", TABLES_PER_RUN, "table", () -> {
+            long sink = 0;
+            for (int i = 0; i < TABLES_PER_RUN; i++) {
+                sink += HuffmanEncoding.buildTree(HuffmanEncoding.buildForest(frequencies)).getFrequency();
+            }
+            return sink;
+        });
+        HuffmanNode root = HuffmanEncoding.buildTree(HuffmanEncoding.buildForest(frequencies));
+        this.measure(label, "createEncodingTable", TABLES_PER_RUN, "table", () -> {
+            long sink = 0;
+            for (int i = 0; i < TABLES_PER_RUN; i++) {
+                sink += HuffmanEncoding.createEncodingTable(root).length;
+            }
+            return sink;
+        });
+        this.measure(label, "encode", message.length(), "byte", () -> encodeScan(message));
+    } // method runScan
+
+    /**
+     * Measure every step of HuffmanEncodingWithHeap on one corpus.
+     *
+     * @param label   corpus and class
+     * @param message the corpus
+     */
+    private void runHeap(String label, String message) {
+        this.measure(label, "countFrequency", message.length(), "byte",
+                () -> HuffmanEncodingWithHeap.countFrequency(message)[' ']);
+        int[] frequencies = HuffmanEncodingWithHeap.countFrequency(message);
+        this.measure(label, "buildForest", TABLES_PER_RUN, "table", () -> {
+            long sink = 0;
+            for (int i = 0; i < TABLES_PER_RUN; i++) {
+                sink += HuffmanEncodingWithHeap.buildForest(frequencies).size();
+            }
+            return sink;
+        });
+        this.measure(label, "buildForest+Tree", TABLES_PER_RUN, "table", () -> {
+            long sink = 0;
+            for (int i = 0; i < TABLES_PER_RUN; i++) {
+                sink += HuffmanEncodingWithHeap.buildTree(HuffmanEncodingWithHeap.buildForest(frequencies)).getFrequency();
+            }
+            return sink;
+        });
+        HuffmanNode root = HuffmanEncodingWithHeap.buildTree(HuffmanEncodingWithHeap.buildForest(frequencies));
+        this.measure(label, "createEncodingTable", TABLES_PER_RUN, "table", () -> {
+            long sink = 0;
+            for (int i = 0; i < TABLES_PER_RUN; i++) {
+                sink += HuffmanEncodingWithHeap.createEncodingTable(root).length;
+            }
+            return sink;
+        });
+        this.measure(label, "encode", message.length(), "byte", () -> encodeHeap(message));
+    } // method runHeap
+
+    /**
+     * Read the options given on the command line.
+     *
+     * @param args options as described in the class comment
+     */
+    private void configure(String[] args) {
+        for (int i = 0; i + 1 < args.length; i += 2) {
+            String value = args[i + 1];
+            switch (args[i]) {
+                case "--size":
+                    this.size = Integer.parseInt(value);
+                    break;
+                case "--corpora":
+                    this.corpora = value.split(",");
+                    break;
+                case "--warmup":
+                    this.warmup = Integer.parseInt(value);
+                    break;
+                case "--iterations":
+                    this.iterations = Integer.parseInt(value);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unknown option " + args[i]);
+            }
+        }
+    } // method configure
+
+    /** Driver code */
+    public static void main(String[] args) {
+        HuffmanBenchmark benchmark = new HuffmanBenchmark();
+        benchmark.configure(args);
+        benchmark.run();
+    } // method main
+
+} // class HuffmanBenchmark
@@ -0,0 +1,521 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Actually compresses data with Huffman codes. The classes HuffmanEncoding and
+ * HuffmanEncodingWithHeap compute a code table and report how small the
+ * message would become; this class produces the compressed bytes and turns
+ * them back into the original.
+ *
+ * Codes are built per message from its byte frequencies, or taken from a
+ * CodebookCache for messages much like earlier ones. Only the length of each
+ * symbol's code is stored in the output: both sides derive the actual codes
+ * from the lengths with the canonical assignment (shorter codes first, ties
+ * broken by symbol value), so the header is a fixed 256 bytes regardless of
+ * the tree's shape.
+ * On very skewed input, where Huffman codes would exceed MAX_CODE_LENGTH bits,
+ * the lengths come from LengthLimitedHuffman instead.
+ * The compressed layout is
+ *
+ * <pre>
+ * byte      FORMAT
+ * int       number of bytes in the original message (big-endian)
+ * byte[256] code length of every symbol, 0 if the symbol does not occur
+ * bits      the codes of the message, most significant bit first, zero-padded
+ * </pre>
+ *
+ * A message can also be encoded with checkpoints, for decoding in parallel.
+ * Every interval bytes of output, the encoder records where in the bit stream
+ * the code of that byte starts; a decoder can then start one worker at each
+ * checkpoint, each filling its own part of the output with the same code
+ * table. The output offset of checkpoint i is i * interval, so only the bit
+ * offsets are stored. The layout then has FORMAT_CHECKPOINTED, and after the
+ * code lengths
+ *
+ * <pre>
+ * int       interval, in bytes of output
+ * long[k]   bit offset of checkpoints 1 to k, from the first bit of the codes,
+ *           where k = (length - 1) / interval (0 for an empty message)
+ * </pre>
+ */
+public class HuffmanCodec {
+
+    /** Identifies the layout above */
+    static final int FORMAT = 1;
+    /** Identifies the layout with checkpoints */
+    static final int FORMAT_CHECKPOINTED = 3;
+    /** Checkpoint interval used when none is given, 64 KB of output */
+    static final int DEFAULT_CHECKPOINT_INTERVAL = 1 << 16;
+    /** Bytes before the first code: format, length and code lengths */
+    static final int HEADER_BYTES = 1 + Integer.BYTES + Histogram.SYMBOLS;
+    /**
+     * Longest code the encoder produces, so that every code is decoded with at
+     * most one secondary lookup in HuffmanDecodeTable (11 + 8 bits)
+     */
+    static final int MAX_CODE_LENGTH = 19;
+    // Field widths in bits
+    private static final int BYTE_BITS = 8;
+    private static final int INT_BITS = 32;
+    private static final int LONG_BITS = 64;
+
+    /** The codec as an EntropyCoder, for choosing coders per block */
+    static final EntropyCoder CODER = new EntropyCoder() {
+        @Override
+        public byte[] encode(byte[] data, int offset, int length) {
+            return HuffmanCodec.encode(data, offset, length);
+        }
+
+        @Override
+        public byte[] decode(byte[] packed) {
+            return HuffmanCodec.decode(packed);
+        }
+    };
+
+    /** Utility class, not meant to be instantiated */
+    private HuffmanCodec() {
+    } // private constructor
+
+    /**
+     * Compress a string, encoded as UTF-8 so that every character can be
+     * represented.
+     *
+     * @param message text to compress
+     * @return compressed bytes
+     */
+    public static byte[] encode(String message) {
+        return encode(message.getBytes(StandardCharsets.UTF_8));
+    } // method encode
+
+    /**
+     * Compress a byte array.
+     *
+     * @param data bytes to compress
+     * @return compressed bytes
+     */
+    public static byte[] encode(byte[] data) {
+        return encode(data, 0, data.length);
+    } // method encode
+
+    /**
+     * Compress a range of a byte array.
+     *
+     * @param data   bytes to compress
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @return compressed bytes
+     */
+    public static byte[] encode(byte[] data, int offset, int length) {
+        byte[] lengths = limitedCodeLengths(Histogram.count(data, offset, length));
+        return encode(data, offset, length, lengths, canonicalCodes(lengths), 0);
+    } // method encode
+
+    /**
+     * Compress a range of a byte array with a checkpoint every interval bytes,
+     * so that decode(packed, pool) can decode it in parallel.
+     *
+     * @param data     bytes to compress
+     * @param offset   first byte of the range
+     * @param length   number of bytes in the range
+     * @param interval bytes of output between checkpoints
+     * @return compressed bytes
+     */
+    public static byte[] encode(byte[] data, int offset, int length, int interval) {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Checkpoint interval must be positive: " + interval);
+        }
+        byte[] lengths = limitedCodeLengths(Histogram.count(data, offset, length));
+        return encode(data, offset, length, lengths, canonicalCodes(lengths), interval);
+    } // method encode
+
+    /**
+     * Compress a range of a byte array with a code table from a cache. Messages
+     * with similar frequencies share a table, so building one drops out of the
+     * per-message work; the output is decoded by decode like any other.
+     *
+     * @param data   bytes to compress
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @param cache  supplies and keeps the code tables
+     * @return compressed bytes
+     */
+    public static byte[] encode(byte[] data, int offset, int length, CodebookCache cache) {
+        CodebookCache.Codebook codebook = cache.lookup(Histogram.count(data, offset, length));
+        return encode(data, offset, length, codebook.getLengths(), codebook.getCodes(), 0);
+    } // method encode
+
+    /**
+     * Compress a range of a byte array with a given code table.
+     *
+     * @param data     bytes to compress
+     * @param offset   first byte of the range
+     * @param length   number of bytes in the range
+     * @param lengths  code length of each symbol; every byte in the range must
+     *                 have a code
+     * @param codes    canonical code of each symbol
+     * @param interval bytes of output between checkpoints, 0 for none
+     * @return compressed bytes
+     */
+    private static byte[] encode(byte[] data, int offset, int length, byte[] lengths, long[] codes, int interval) {
+        BitWriter writer = new BitWriter(HEADER_BYTES + length / 2);
+        writer.write(interval == 0 ? FORMAT : FORMAT_CHECKPOINTED, BYTE_BITS);
+        writer.write(length, INT_BITS);
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            writer.write(lengths[symbol], BYTE_BITS);
+        }
+        if (interval > 0) {
+            // The offsets go before the codes, so add up the code lengths first
+            writer.write(interval, INT_BITS);
+            long bits = 0;
+            for (int i = 0; i < length; i++) {
+                if (i > 0 && i % interval == 0) {
+                    writer.write(bits, LONG_BITS);
+                }
+                bits += lengths[data[offset + i] & 0xFF];
+            }
+        }
+        for (int i = offset; i < offset + length; i++) {
+            int symbol = data[i] & 0xFF;
+            writer.write(codes[symbol], lengths[symbol]);
+        }
+        return writer.toByteArray();
+    } // method encode
+
+    /**
+     * Decompress bytes produced by encode.
+     *
+     * @param packed compressed bytes
+     * @return the original bytes
+     * @throws IllegalArgumentException if packed is not valid encoder output
+     */
+    public static byte[] decode(byte[] packed) {
+        return decode(packed, null);
+    } // method decode
+
+    /**
+     * Decompress bytes produced by encode, in parallel if they have checkpoints:
+     * one task per checkpoint, each with its own BitReader, fills its own part
+     * of the output. Without checkpoints, or without a pool, the bytes are
+     * decoded sequentially.
+     *
+     * @param packed compressed bytes
+     * @param pool   runs the tasks, or null to decode sequentially; it is not
+     *               shut down
+     * @return the original bytes
+     * @throws IllegalArgumentException if packed is not valid encoder output
+     */
+    public static byte[] decode(byte[] packed, ForkJoinPool pool) {
+        if (packed.length < HEADER_BYTES || ((packed[0] & 0xFF) != FORMAT && (packed[0] & 0xFF) != FORMAT_CHECKPOINTED)) {
+            throw new IllegalArgumentException("Not a Huffman-compressed message");
+        }
+        BitReader reader = new BitReader(packed, 0, packed.length);
+        int format = (int) reader.read(BYTE_BITS);
+        int length = (int) reader.read(INT_BITS);
+        byte[] lengths = new byte[Histogram.SYMBOLS];
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            lengths[symbol] = (byte) reader.read(BYTE_BITS);
+        }
+        if (length < 0) {
+            throw new IllegalArgumentException("Corrupt message length " + length);
+        }
+        // Bit offset of every checkpoint, the start of the codes included
+        long[] checkpoints = { 0 };
+        int interval = Math.max(length, 1);
+        int count = 0;
+        long codeStart = HEADER_BYTES;
+        if (format == FORMAT_CHECKPOINTED) {
+            interval = (int) reader.read(INT_BITS);
+            if (interval <= 0) {
+                throw new IllegalArgumentException("Corrupt checkpoint interval " + interval);
+            }
+            count = length == 0 ? 0 : (length - 1) / interval;
+            codeStart += Integer.BYTES + (long) count * Long.BYTES;
+        }
+        // Every code takes at least one bit, so neither the length nor a
+        // checkpoint can go past the bits that are there; checking this before
+        // allocating keeps a damaged header from asking for gigabytes
+        if (codeStart > packed.length) {
+            throw new IllegalArgumentException("Corrupt checkpoint count " + count);
+        }
+        long codeBits = 8L * (packed.length - codeStart);
+        if (length > codeBits) {
+            throw new IllegalArgumentException("Message length " + length + " exceeds the " + codeBits
+                    + " bits of codes");
+        }
+        if (count > 0) {
+            checkpoints = new long[count + 1];
+            for (int i = 1; i <= count; i++) {
+                checkpoints[i] = reader.read(LONG_BITS / 2) << (LONG_BITS / 2) | reader.read(LONG_BITS / 2);
+                if (checkpoints[i] - checkpoints[i - 1] < interval || checkpoints[i] >= codeBits) {
+                    throw new IllegalArgumentException("Corrupt checkpoint " + i);
+                }
+            }
+        }
+
+        byte[] output = new byte[length];
+        int maxLength = 0;
+        for (byte bits : lengths) {
+            maxLength = Math.max(maxLength, bits & 0xFF);
+        }
+        if (maxLength > HuffmanDecodeTable.MAX_CODE_LENGTH) {
+            decodeSerial(reader, lengths, output);
+        } else if (pool == null || checkpoints.length == 1) {
+            new HuffmanDecodeTable(lengths).decode(reader, output, 0, length);
+        } else {
+            pool.invoke(new SegmentTask(new HuffmanDecodeTable(lengths), packed, (int) codeStart, checkpoints, interval,
+                    output, 0, checkpoints.length));
+        }
+        return output;
+    } // method decode
+
+    /** Decodes the output between some checkpoints, splitting the work in two if there are several */
+    private static class SegmentTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+        private final HuffmanDecodeTable table;
+        private final byte[] packed;
+        private final int codeStart;
+        private final long[] checkpoints;
+        private final int interval;
+        private final byte[] output;
+        private final int from;
+        private final int to;
+
+        /**
+         * Constructor.
+         *
+         * @param table       decode table, shared by all tasks
+         * @param packed      compressed bytes
+         * @param codeStart   index of the first byte of the codes
+         * @param checkpoints bit offset of every checkpoint
+         * @param interval    bytes of output between checkpoints
+         * @param output      where to put the decoded bytes
+         * @param from        first checkpoint to decode from
+         * @param to          checkpoint just past the last one
+         */
+        SegmentTask(HuffmanDecodeTable table, byte[] packed, int codeStart, long[] checkpoints, int interval,
+                byte[] output, int from, int to) {
+            this.table = table;
+            this.packed = packed;
+            this.codeStart = codeStart;
+            this.checkpoints = checkpoints;
+            this.interval = interval;
+            this.output = output;
+            this.from = from;
+            this.to = to;
+        } // constructor
+
+        @Override
+        protected void compute() {
+            if (this.to - this.from == 1) {
+                BitReader reader = new BitReader(this.packed, this.codeStart, this.packed.length - this.codeStart);
+                reader.seek(this.checkpoints[this.from]);
+                int start = this.from * this.interval;
+                this.table.decode(reader, this.output, start, Math.min(this.interval, this.output.length - start));
+                // Every segment but the last must end exactly where the next begins
+                if (this.from + 1 < this.checkpoints.length
+                        && reader.bitsRead() != this.checkpoints[this.from + 1]) {
+                    throw new IllegalArgumentException("Segment " + this.from + " does not end at checkpoint "
+                            + (this.from + 1));
+                }
+            } else {
+                int middle = (this.from + this.to) >>> 1;
+                invokeAll(new SegmentTask(this.table, this.packed, this.codeStart, this.checkpoints, this.interval,
+                        this.output, this.from, middle),
+                        new SegmentTask(this.table, this.packed, this.codeStart, this.checkpoints, this.interval,
+                                this.output, middle, this.to));
+            }
+        } // method compute
+    } // class SegmentTask
+
+    /**
+     * Decode one bit at a time, for codes too long for HuffmanDecodeTable. Each
+     * bit extends the code, which is compared against the range of canonical
+     * codes of the current length.
+     *
+     * @param reader  source of the bits, positioned after the header
+     * @param lengths code length of each symbol
+     * @param output  where to put the decoded bytes; its length is the count
+     * @throws IllegalArgumentException if the input holds an invalid code or
+     *                                  ends before the last byte
+     */
+    private static void decodeSerial(BitReader reader, byte[] lengths, byte[] output) {
+        // Per length, how many codes there are, and the symbols in code order
+        int maxLength = 0;
+        int[] countPerLength = new int[Histogram.SYMBOLS];
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            int bits = lengths[symbol] & 0xFF;
+            countPerLength[bits]++;
+            maxLength = Math.max(maxLength, bits);
+        }
+        countPerLength[0] = 0;
+        if (maxLength >= Long.SIZE) {
+            throw new IllegalArgumentException("Code lengths above 63 bits");
+        }
+        // Kraft's inequality: the codes of each length must fit in what the
+        // shorter ones left over, or the canonical ranges would overlap. Past
+        // Histogram.SYMBOLS free codes nothing can run out any more
+        long free = 1;
+        for (int bits = 1; bits <= maxLength; bits++) {
+            free = Math.min(2 * free, Histogram.SYMBOLS) - countPerLength[bits];
+            if (free < 0) {
+                throw new IllegalArgumentException("Code lengths do not form a prefix code");
+            }
+        }
+        int[] sorted = sortedSymbols(lengths);
+
+        for (int i = 0; i < output.length; i++) {
+            // Extend the code one bit at a time until it falls in the range of
+            // codes of the current length
+            long code = 0;
+            long first = 0;
+            int index = 0;
+            int symbol = -1;
+            for (int bits = 1; bits <= maxLength && symbol < 0; bits++) {
+                code |= reader.readBit();
+                int count = countPerLength[bits];
+                if (code - first < count) {
+                    symbol = sorted[index + (int) (code - first)];
+                } else {
+                    index += count;
+                    first = (first + count) << 1;
+                    code <<= 1;
+                }
+            }
+            if (symbol < 0) {
+                throw new IllegalArgumentException("Corrupt code at output byte " + i);
+            }
+            output[i] = (byte) symbol;
+        }
+        if (reader.isOverrun()) {
+            throw new IllegalArgumentException("Input ends before output byte " + (output.length - 1));
+        }
+    } // helper method decodeSerial
+
+    /**
+     * Decompress bytes produced by encode(String).
+     *
+     * @param packed compressed bytes
+     * @return the original text
+     */
+    public static String decodeToString(byte[] packed) {
+        return new String(decode(packed), StandardCharsets.UTF_8);
+    } // method decodeToString
+
+    /**
+     * Compute the Huffman code length of every symbol from its frequency. The
+     * lengths are computed in place by LinearHuffman, without building a tree,
+     * since a new code is needed for every message or block. A lone symbol gets
+     * a 1-bit code so that it still takes space.
+     *
+     * @param frequencies count of each of the 256 symbols
+     * @return code length of each symbol, 0 for symbols that do not occur
+     */
+    public static byte[] codeLengths(int[] frequencies) {
+        return LinearHuffman.codeLengths(frequencies);
+    } // method codeLengths
+
+    /**
+     * Compute the code lengths encode uses: Huffman's, unless a code would be
+     * longer than MAX_CODE_LENGTH bits, in which case the best lengths within
+     * that limit.
+     *
+     * @param frequencies count of each symbol
+     * @return code length of each symbol, 0 for symbols that do not occur
+     */
+    static byte[] limitedCodeLengths(int[] frequencies) {
+        byte[] lengths = codeLengths(frequencies);
+        if (LengthLimitedHuffman.maxLength(lengths) > MAX_CODE_LENGTH) {
+            lengths = LengthLimitedHuffman.codeLengths(frequencies, MAX_CODE_LENGTH);
+        }
+        return lengths;
+    } // method limitedCodeLengths
+
+    /**
+     * Assign canonical codes from code lengths: codes of the same length are
+     * consecutive integers in symbol order, and each length starts where the
+     * previous one ended, shifted left by one.
+     *
+     * @param lengths code length of each symbol, 0 for unused symbols
+     * @return code of each symbol, right-aligned in a long
+     */
+    public static long[] canonicalCodes(byte[] lengths) {
+        int[] countPerLength = new int[Histogram.SYMBOLS];
+        for (byte length : lengths) {
+            countPerLength[length & 0xFF]++;
+        }
+        countPerLength[0] = 0;
+        long[] nextCode = new long[Histogram.SYMBOLS + 1];
+        long code = 0;
+        for (int bits = 1; bits < Histogram.SYMBOLS; bits++) {
+            code = (code + countPerLength[bits - 1]) << 1;
+            nextCode[bits] = code;
+        }
+        long[] codes = new long[lengths.length];
+        for (int symbol = 0; symbol < lengths.length; symbol++) {
+            int bits = lengths[symbol] & 0xFF;
+            if (bits > 0) {
+                codes[symbol] = nextCode[bits]++;
+            }
+        }
+        return codes;
+    } // method canonicalCodes
+
+    /**
+     * List the used symbols in canonical code order: by code length, then by
+     * symbol value.
+     *
+     * @param lengths code length of each symbol
+     * @return the used symbols in code order
+     */
+    static int[] sortedSymbols(byte[] lengths) {
+        int used = 0;
+        for (byte length : lengths) {
+            if (length != 0) {
+                used++;
+            }
+        }
+        int[] sorted = new int[used];
+        int index = 0;
+        for (int bits = 1; bits < Histogram.SYMBOLS; bits++) {
+            for (int symbol = 0; symbol < lengths.length; symbol++) {
+                if ((lengths[symbol] & 0xFF) == bits) {
+                    sorted[index++] = symbol;
+                }
+            }
+        }
+        return sorted;
+    } // method sortedSymbols
+
+    /** Driver code */
+    public static void main(String[] args) {
+        String message = "now is the winter of our discontent made glorious by this son of york and all the clouds that lour'd over our house in the deep bosom of the ocean lay";
+        byte[] packed = encode(message);
+        System.out.printf("Compressed %d bytes into %d bytes (%d of them header).%n",
+                message.length(), packed.length, HEADER_BYTES);
+        System.out.println("Round trip matches: " + decodeToString(packed).equals(message));
+
+        // A large message, decoded sequentially and from its checkpoints
+        Random random = new Random(271);
+        byte[] data = new byte[64 << 20];
+        for (int i = 0; i < data.length; i++) {
+            data[i] = (byte) message.charAt((int) (Math.pow(random.nextDouble(), 2) * message.length()));
+        }
+        byte[] checkpointed = encode(data, 0, data.length, DEFAULT_CHECKPOINT_INTERVAL);
+        System.out.printf("Checkpoints add %d bytes to %d.%n",
+                checkpointed.length - encode(data).length, checkpointed.length);
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            boolean sequentialOk = Arrays.equals(data, decode(checkpointed));
+            long sequential = System.nanoTime() - start;
+            start = System.nanoTime();
+            boolean parallelOk = Arrays.equals(data, decode(checkpointed, ForkJoinPool.commonPool()));
+            long parallel = System.nanoTime() - start;
+            System.out.printf("sequential %.0f MB/s (ok %b), parallel on %d threads %.0f MB/s (ok %b)%n",
+                    data.length * 1e3 / sequential, sequentialOk, ForkJoinPool.commonPool().getParallelism(),
+                    data.length * 1e3 / parallel, parallelOk);
+        }
+    } // method main
+
+} // class HuffmanCodec
@@ -0,0 +1,234 @@
+import java.util.Arrays;
+
+/**
+ * Lookup tables for decoding canonical Huffman codes several bits at a time
+ * instead of walking a tree one bit per step.
+ *
+ * The primary table is indexed by the next PRIMARY_BITS bits of input (fewer
+ * if no code is that long). An entry for a short code says which symbol it is
+ * and how many bits to consume; when the bits after a short code also hold a
+ * complete short code, the entry carries both symbols, so one lookup decodes
+ * two symbols. Codes longer than the primary index continue in secondary
+ * tables of up to SECONDARY_BITS bits each, reached through pointer entries.
+ *
+ * All tables live one after another in a single int array. An entry is either
+ *
+ * <pre>
+ * leaf:    bits 0-7 first symbol, 8-15 second symbol, 16-21 first code length,
+ *          22-27 bits to consume, 28-29 number of symbols (0 = invalid code)
+ * pointer: bit 31 set, bits 0-5 width of the next table, 6-30 its start
+ * </pre>
+ */
+public class HuffmanDecodeTable {
+
+    /** Longest code the tables can decode; BitReader can peek this far */
+    static final int MAX_CODE_LENGTH = BitReader.MAX_PEEK;
+    // Width of the primary table and of each secondary table
+    private static final int PRIMARY_BITS = 11;
+    private static final int SECONDARY_BITS = 8;
+    // Entry layout
+    private static final int POINTER = 0x80000000;
+    private static final int SYMBOL_MASK = 0xFF;
+    private static final int SECOND_SHIFT = 8;
+    private static final int LENGTH_SHIFT = 16;
+    private static final int TOTAL_SHIFT = 22;
+    private static final int COUNT_SHIFT = 28;
+    private static final int FIELD_MASK = 0x3F;
+    private static final int OFFSET_SHIFT = 6;
+
+    /** Every table, primary first */
+    private int[] entries;
+    /** Number of entries in use */
+    private int used;
+    /** Index width of the primary table */
+    private final int primaryBits;
+    /** Length of the longest code */
+    private final int maxLength;
+
+    /**
+     * Build the tables for the canonical code described by code lengths.
+     *
+     * @param lengths code length of each symbol, 0 for unused symbols
+     * @throws IllegalArgumentException if a code is longer than MAX_CODE_LENGTH
+     *                                  or the lengths are oversubscribed
+     */
+    public HuffmanDecodeTable(byte[] lengths) {
+        int longest = 0;
+        for (byte length : lengths) {
+            longest = Math.max(longest, length & 0xFF);
+        }
+        if (longest > MAX_CODE_LENGTH) {
+            throw new IllegalArgumentException("Code length " + longest + " exceeds " + MAX_CODE_LENGTH);
+        }
+        // A prefix code cannot give out more than the whole code space
+        long space = 0;
+        for (int i = 0; i < lengths.length && space <= (1L << longest); i++) {
+            if (lengths[i] != 0) {
+                space += 1L << (longest - (lengths[i] & 0xFF));
+            }
+        }
+        if (space > (1L << longest)) {
+            throw new IllegalArgumentException("Code lengths do not form a prefix code");
+        }
+        this.maxLength = longest;
+        this.primaryBits = Math.min(PRIMARY_BITS, longest);
+        this.entries = new int[1 << this.primaryBits];
+        this.used = this.entries.length;
+
+        // Longest codes first: canonical codes grow with their length, so the first
+        // code to reach an empty pointer slot is the longest one sharing its prefix,
+        // and it decides how wide the secondary table must be
+        long[] codes = HuffmanCodec.canonicalCodes(lengths);
+        int[] sorted = HuffmanCodec.sortedSymbols(lengths);
+        for (int i = sorted.length - 1; i >= 0; i--) {
+            int symbol = sorted[i];
+            this.insert(symbol, codes[symbol], lengths[symbol] & 0xFF);
+        }
+        this.pairPrimaryEntries();
+    } // constructor
+
+    /**
+     * Decode symbols into an array.
+     *
+     * @param reader source of the bits
+     * @param output where to put the symbols
+     * @param offset index of the first symbol in output
+     * @param length number of symbols to decode
+     * @throws IllegalArgumentException if the input holds an invalid code or
+     *                                  ends before the last symbol
+     */
+    public void decode(BitReader reader, byte[] output, int offset, int length) {
+        if (this.maxLength == 0 && length > 0) {
+            throw new IllegalArgumentException("No codes to decode with");
+        }
+        int end = offset + length;
+        int i = offset;
+        while (i < end) {
+            reader.refill();
+            long bits = reader.peek(this.maxLength);
+            int depth = this.primaryBits;
+            int entry = this.entries[(int) (bits >>> (this.maxLength - depth))];
+            while (entry < 0) {
+                int width = entry & FIELD_MASK;
+                int start = (entry & ~POINTER) >>> OFFSET_SHIFT;
+                depth += width;
+                entry = this.entries[start + (int) ((bits >>> (this.maxLength - depth)) & BitWriter.mask(width))];
+            }
+            int count = (entry >>> COUNT_SHIFT) & 0x3;
+            if (count == 0) {
+                throw new IllegalArgumentException("Corrupt code at output byte " + i);
+            }
+            output[i++] = (byte) entry;
+            if (count == 2 && i < end) {
+                output[i++] = (byte) (entry >>> SECOND_SHIFT);
+                reader.consume((entry >>> TOTAL_SHIFT) & FIELD_MASK);
+            } else {
+                reader.consume((entry >>> LENGTH_SHIFT) & FIELD_MASK);
+            }
+        }
+        if (reader.isOverrun()) {
+            throw new IllegalArgumentException("Input ends before output byte " + (end - 1));
+        }
+    } // method decode
+
+    /**
+     * Add one code to the tables, creating secondary tables on the way.
+     *
+     * @param symbol symbol of the code
+     * @param code   the code, right-aligned
+     * @param length length of the code
+     */
+    private void insert(int symbol, long code, int length) {
+        int start = 0;
+        int depth = 0;
+        int width = this.primaryBits;
+        while (length > depth + width) {
+            // The code continues past this table: follow or create the pointer
+            int slot = start + (int) ((code >>> (length - depth - width)) & BitWriter.mask(width));
+            if (this.entries[slot] == 0) {
+                int nextWidth = Math.min(SECONDARY_BITS, length - depth - width);
+                int table = this.allocate(1 << nextWidth);
+                this.entries[slot] = POINTER | (table << OFFSET_SHIFT) | nextWidth;
+            }
+            depth += width;
+            start = (this.entries[slot] & ~POINTER) >>> OFFSET_SHIFT;
+            width = this.entries[slot] & FIELD_MASK;
+        }
+        // The code ends inside this table: it owns every slot whose leading bits
+        // match its remaining bits
+        int spare = depth + width - length;
+        int first = start + (int) ((code & BitWriter.mask(length - depth)) << spare);
+        int entry = leaf(symbol, length);
+        for (int slot = first; slot < first + (1 << spare); slot++) {
+            this.entries[slot] = entry;
+        }
+    } // helper method insert
+
+    /**
+     * Where the bits after a short primary code form another complete short
+     * code, store both symbols in the entry.
+     */
+    private void pairPrimaryEntries() {
+        int size = 1 << this.primaryBits;
+        int[] single = new int[size];
+        System.arraycopy(this.entries, 0, single, 0, size);
+        for (int index = 0; index < size; index++) {
+            int entry = single[index];
+            int firstLength = (entry >>> LENGTH_SHIFT) & FIELD_MASK;
+            int rest = this.primaryBits - firstLength;
+            if (entry > 0 && rest > 0) {
+                // The following code starts right after the first one; its entry is
+                // the one indexed by the leftover bits padded with zeros
+                int next = single[(int) ((index & BitWriter.mask(rest)) << firstLength)];
+                int nextLength = (next >>> LENGTH_SHIFT) & FIELD_MASK;
+                if (next > 0 && nextLength <= rest) {
+                    this.entries[index] = (entry & (SYMBOL_MASK | (FIELD_MASK << LENGTH_SHIFT)))
+                            | ((next & SYMBOL_MASK) << SECOND_SHIFT)
+                            | ((firstLength + nextLength) << TOTAL_SHIFT)
+                            | (2 << COUNT_SHIFT);
+                }
+            }
+        }
+    } // helper method pairPrimaryEntries
+
+    /**
+     * Reserve room for a secondary table.
+     *
+     * @param size number of entries
+     * @return index of the table's first entry
+     */
+    private int allocate(int size) {
+        if (this.used + size > this.entries.length) {
+            this.entries = Arrays.copyOf(this.entries, Math.max(2 * this.entries.length, this.used + size));
+        }
+        int start = this.used;
+        this.used += size;
+        return start;
+    } // helper method allocate
+
+    /**
+     * Make a leaf entry for a single symbol.
+     *
+     * @param symbol the symbol
+     * @param length length of its code
+     * @return the entry
+     */
+    private static int leaf(int symbol, int length) {
+        return symbol | (length << LENGTH_SHIFT) | (length << TOTAL_SHIFT) | (1 << COUNT_SHIFT);
+    } // helper method leaf
+
+    /******************************* Accessors *******************************/
+
+    public int getMaxLength() {
+        return this.maxLength;
+    }
+
+    public int getPrimaryBits() {
+        return this.primaryBits;
+    }
+
+    public int getTableSize() {
+        return this.used;
+    }
+
+} // class HuffmanDecodeTable
@@ -7,6 +7,7 @@ public class HuffmanEncoding {
     private static final char RIGHT = '1';
     private static final String EMPTY = "";
     private static final int BITS_PER_BYTE = 8;
+    private static final int LENGTH_LIMIT = 6;
 
     /**
      * Parses a string and produce a frequency count for each of its symbols. Counts
@@ -28,6 +29,22 @@ public class HuffmanEncoding {
         return frequencies;
     } // method countFrequncy
 
+    /**
+     * Produce a frequency count for each byte value of a byte array, using the
+     * striped counting of Histogram. Unlike the String version this accepts any
+     * input, since every byte value has a place in the array.
+     * 
+     * @param message bytes to count
+     * @return array with frequency count for each possible byte value
+     */
+    public static int[] countFrequency(byte[] message) {
+        int[] frequencies = new int[ASCII8];
+        if (message != null) {
+            frequencies = Histogram.count(message);
+        }
+        return frequencies;
+    } // method countFrequency
+
     /**
      * Build an array of Huffman nodes, each a minimal tree containing a symbol and
      * its frequency as it appears in a string we wish to compress.
@@ -106,8 +123,9 @@ public class HuffmanEncoding {
     public static void createEncodingTable(HuffmanNode node, String code, String[] codes) {
         // Only process non-null nodes
         if (node != null) {
-            // Base case when node has a symbol -- we've reach a leaf node in the tree
-            if ((int) node.getSymbol() != 0) {
+            // Base case when node has no children -- we've reach a leaf node in the
+            // tree; testing the symbol instead would lose symbol 0
+            if (!node.hasLeft() && !node.hasRight()) {
                 codes[(int) node.getSymbol()] = code;
             } else {
                 // Recursive case: intermediate nodes; explore their children updating the
@@ -131,6 +149,53 @@ public class HuffmanEncoding {
         return codes;
     } // method createEncodingTable
 
+    /**
+     * Iterative traversal of a Huffman tree to produce a primitive encoding
+     * table: each symbol's code as a long, most significant bit first, and its
+     * length in bits. Leaves are recognized by having no children, so symbol 0 is
+     * encoded like any other, and no Strings are built along the way. A tree whose
+     * frequencies sum to less than 2^31 is at most 45 levels deep (the Fibonacci
+     * worst case), so 63 bits hold every code.
+     * 
+     * @param root       The root of the Huffman tree
+     * @param codeBits   long[256] to fill with the right-aligned codes
+     * @param codeLength byte[256] to fill with the code lengths, 0 for symbols
+     *                   not in the tree
+     * @throws IllegalArgumentException if a code is longer than 63 bits
+     */
+    public static void createCodeTable(HuffmanNode root, long[] codeBits, byte[] codeLength) {
+        // Nodes still to visit, with the code and length of the path to each
+        HuffmanNode[] nodes = new HuffmanNode[ASCII8];
+        long[] paths = new long[ASCII8];
+        int[] depths = new int[ASCII8];
+        int top = 0;
+        if (root != null) {
+            nodes[top] = root;
+            paths[top] = 0;
+            depths[top++] = 0;
+        }
+        while (top > 0) {
+            HuffmanNode node = nodes[--top];
+            long path = paths[top];
+            int depth = depths[top];
+            if (!node.hasLeft() && !node.hasRight()) {
+                if (depth >= Long.SIZE) {
+                    throw new IllegalArgumentException("Code of symbol " + (int) node.getSymbol() + " is longer than 63 bits");
+                }
+                codeBits[(int) node.getSymbol()] = path;
+                codeLength[(int) node.getSymbol()] = (byte) depth;
+            } else {
+                // Right is pushed first so that the left subtree is visited first
+                nodes[top] = node.getRight();
+                paths[top] = (path << 1) | (RIGHT - LEFT);
+                depths[top++] = depth + 1;
+                nodes[top] = node.getLeft();
+                paths[top] = path << 1;
+                depths[top++] = depth + 1;
+            }
+        }
+    } // method createCodeTable
+
     /**
      * Prints out the Huffman codes for ASCII symbols in a given message
      * 
@@ -144,6 +209,35 @@ public class HuffmanEncoding {
         }
     } // method displayCodes
 
+    /**
+     * Prints out the Huffman codes of a primitive encoding table
+     * 
+     * @param codeBits   long[] with the codes indexed by ASCII value
+     * @param codeLength byte[] with the code lengths indexed by ASCII value
+     */
+    public static void displayCodes(long[] codeBits, byte[] codeLength) {
+        for (int i = 0; i < codeLength.length; i++) {
+            if (codeLength[i] > 0) {
+                System.out.printf("\n '%s' --> %-10s", (char) i, toBinary(codeBits[i], codeLength[i]));
+            }
+        }
+    } // method displayCodes
+
+    /**
+     * Spell out a code as a string of 0s and 1s
+     * 
+     * @param code   right-aligned code
+     * @param length number of bits in the code
+     * @return String with the bits, most significant first
+     */
+    private static String toBinary(long code, int length) {
+        char[] digits = new char[length];
+        for (int i = 0; i < length; i++) {
+            digits[length - 1 - i] = ((code >>> i) & 1) == 0 ? LEFT : RIGHT;
+        }
+        return new String(digits);
+    } // method toBinary
+
     /**
      * Computes the number of bits required for the compressed message
      * 
@@ -159,6 +253,22 @@ public class HuffmanEncoding {
         return compressionLength;
     } // method computeCompressionLength
 
+    /**
+     * Computes the number of bits required for the compressed message from a
+     * primitive encoding table; the loop is array arithmetic only
+     * 
+     * @param message    String to compress
+     * @param codeLength byte[] with the code lengths indexed by ASCII value
+     * @return int with length of compressed message
+     */
+    public static int computeCompressionLength(String message, byte[] codeLength) {
+        int compressionLength = 0;
+        for (int i = 0; i < message.length(); i++) {
+            compressionLength += codeLength[message.charAt(i)];
+        }
+        return compressionLength;
+    } // method computeCompressionLength
+
     /**
      * Prints a brief report about the length of the compressed message v. the
      * length of the uncompressed message.
@@ -171,6 +281,32 @@ public class HuffmanEncoding {
                 computeCompressionLength(message, codes), message.length() * BITS_PER_BYTE);
     } // method reportEfficiency
 
+    /**
+     * Prints a brief report about the length of the compressed message v. the
+     * length of the uncompressed message, from a primitive encoding table.
+     * 
+     * @param message    String to compress
+     * @param codeLength byte[] with the code lengths indexed by ASCII value
+     */
+    public static void reportEfficiency(String message, byte[] codeLength) {
+        System.out.printf("\nCompressed message requires %d bits versus %d bits for ASCII encoding.\n",
+                computeCompressionLength(message, codeLength), message.length() * BITS_PER_BYTE);
+    } // method reportEfficiency
+
+    /**
+     * Prints how many more bits the message needs when its codes are limited to
+     * maxLength bits (see LengthLimitedHuffman) instead of being unrestricted
+     * Huffman codes. Both classes build optimal trees of the same cost, so this
+     * shares the report of HuffmanEncodingWithHeap.
+     * 
+     * @param message   String to compress
+     * @param maxLength longest code allowed, raised if the message has more than
+     *                  2^maxLength distinct symbols
+     */
+    public static void reportLengthLimitCost(String message, int maxLength) {
+        HuffmanEncodingWithHeap.reportLengthLimitCost(message, maxLength);
+    } // method reportLengthLimitCost
+
     /**
      * Orchestate the Huffman encoding of a string
      * 
@@ -180,9 +316,12 @@ public class HuffmanEncoding {
         int[] frequencies = countFrequency(message);
         ArrayList<HuffmanNode> forest = buildForest(frequencies);
         HuffmanNode huffmanTreeRoot = buildTree(forest);
-        String[] codes = createEncodingTable(huffmanTreeRoot);
-        displayCodes(codes);
-        reportEfficiency(message, codes);
+        long[] codeBits = new long[ASCII8];
+        byte[] codeLength = new byte[ASCII8];
+        createCodeTable(huffmanTreeRoot, codeBits, codeLength);
+        displayCodes(codeBits, codeLength);
+        reportEfficiency(message, codeLength);
+        reportLengthLimitCost(message, LENGTH_LIMIT);
     } // method encode
 
     /** Driver code */
@@ -15,6 +15,7 @@ public class HuffmanEncodingWithHeap {
     private static final char RIGHT = '1'; // Character representing the right branch of the Huffman tree
     private static final String EMPTY = ""; // Empty string for initializing the Huffman code
     private static final int BITS_PER_BYTE = 8; // The number of bits in a byte
+    private static final int LENGTH_LIMIT = 6; // Code length limit whose cost encode reports
 
     /**
      * Parses a string and produces a frequency count for each of its symbols.
@@ -32,6 +33,22 @@ public class HuffmanEncodingWithHeap {
         return frequencies; // Return the frequency array
     } // method countFrequency
 
+    /**
+     * Produces a frequency count for each byte value of a byte array. Counting is
+     * done by Histogram with interleaved count tables, which is much faster than
+     * one increment after another into the same array.
+     * 
+     * @param message Bytes to count
+     * @return Array of frequency counts for each byte value
+     */
+    public static int[] countFrequency(byte[] message) {
+        int[] frequencies = new int[ASCII8]; // Empty counts for a null message
+        if (message != null) {
+            frequencies = Histogram.count(message); // Striped count of every byte
+        }
+        return frequencies;
+    } // method countFrequency
+
     /**
      * Build a MinHeap from the frequencies of the symbols in the string.
      * 
@@ -91,7 +108,7 @@ public class HuffmanEncodingWithHeap {
      */
     public static void createEncodingTable(HuffmanNode node, String code, String[] codes) {
         if (node != null) { // If the current node is not null
-            if ((int) node.getSymbol() != 0) { // If the node has a valid symbol (not an internal node)
+            if (!node.hasLeft() && !node.hasRight()) { // If the node has no children, it is a leaf (symbol 0 included)
                 codes[(int) node.getSymbol()] = code; // Store the code for the symbol in the encoding table
             } else {
                 // If the node is an internal node (not a leaf), recursively visit the left and
@@ -114,6 +131,49 @@ public class HuffmanEncodingWithHeap {
         return codes; // Return the array of Huffman codes
     } // method createEncodingTable
 
+    /**
+     * Builds a primitive encoding table from the Huffman tree: the code of each
+     * symbol as a long (most significant bit first, left = 0, right = 1) and its
+     * length in bits. The tree is walked with an explicit stack, so no String is
+     * created and deep trees cannot overflow the call stack. Frequencies that sum
+     * to less than 2^31 give a tree at most 45 levels deep, so every code fits.
+     * 
+     * @param root       The root of the Huffman tree
+     * @param codeBits   Array of 256 codes to fill, right-aligned
+     * @param codeLength Array of 256 code lengths to fill, 0 for absent symbols
+     * @throws IllegalArgumentException if a code is longer than 63 bits
+     */
+    public static void createCodeTable(HuffmanNode root, long[] codeBits, byte[] codeLength) {
+        HuffmanNode[] nodes = new HuffmanNode[ASCII8]; // Nodes waiting to be visited
+        long[] paths = new long[ASCII8]; // Code of the path to each waiting node
+        int[] depths = new int[ASCII8]; // Length of that path
+        int top = 0; // Number of waiting nodes
+        if (root != null) { // Start from the root with an empty code
+            nodes[top] = root;
+            paths[top] = 0;
+            depths[top++] = 0;
+        }
+        while (top > 0) { // Visit nodes until none are waiting
+            HuffmanNode node = nodes[--top];
+            long path = paths[top];
+            int depth = depths[top];
+            if (!node.hasLeft() && !node.hasRight()) { // A leaf: its path is its code
+                if (depth >= Long.SIZE) {
+                    throw new IllegalArgumentException("Code of symbol " + (int) node.getSymbol() + " is longer than 63 bits");
+                }
+                codeBits[(int) node.getSymbol()] = path;
+                codeLength[(int) node.getSymbol()] = (byte) depth;
+            } else { // An internal node: push both children with the path extended by one bit
+                nodes[top] = node.getRight();
+                paths[top] = (path << 1) | (RIGHT - LEFT);
+                depths[top++] = depth + 1;
+                nodes[top] = node.getLeft();
+                paths[top] = path << 1;
+                depths[top++] = depth + 1;
+            }
+        }
+    } // method createCodeTable
+
     /**
      * Prints out the Huffman codes for each ASCII symbol in the message.
      * 
@@ -127,6 +187,35 @@ public class HuffmanEncodingWithHeap {
         }
     } // method displayCodes
 
+    /**
+     * Prints out the Huffman codes of a primitive encoding table.
+     * 
+     * @param codeBits   Array of codes, right-aligned
+     * @param codeLength Array of code lengths
+     */
+    public static void displayCodes(long[] codeBits, byte[] codeLength) {
+        for (int i = 0; i < codeLength.length; i++) { // Loop through all possible ASCII values
+            if (codeLength[i] > 0) { // If a Huffman code exists for this symbol
+                System.out.printf("\n '%s' --> %-10s", (char) i, toBinary(codeBits[i], codeLength[i])); // Print the symbol and its code
+            }
+        }
+    } // method displayCodes
+
+    /**
+     * Spells out the low bits of a code as a string of 0s and 1s.
+     * 
+     * @param code   The code, right-aligned
+     * @param length Number of bits to spell out
+     * @return The bits, most significant first
+     */
+    private static String toBinary(long code, int length) {
+        char[] digits = new char[length]; // One character per bit
+        for (int i = 0; i < length; i++) { // Fill from the least significant bit backwards
+            digits[length - 1 - i] = ((code >>> i) & 1) == 0 ? LEFT : RIGHT;
+        }
+        return new String(digits);
+    } // method toBinary
+
     /**
      * Computes the length of the compressed message in bits.
      * 
@@ -143,6 +232,22 @@ public class HuffmanEncodingWithHeap {
         return compressionLength; // Return the total number of bits required for the compressed message
     } // method computeCompressionLength
 
+    /**
+     * Computes the length of the compressed message in bits from a primitive
+     * encoding table; the loop only adds array entries.
+     * 
+     * @param message    The original message
+     * @param codeLength Array of code lengths
+     * @return The number of bits required for compression
+     */
+    public static int computeCompressionLength(String message, byte[] codeLength) {
+        int compressionLength = 0; // Variable to store the total number of bits
+        for (int i = 0; i < message.length(); i++) { // Loop through the message
+            compressionLength += codeLength[message.charAt(i)]; // Add the length of the code of each character
+        }
+        return compressionLength; // Return the total number of bits required for the compressed message
+    } // method computeCompressionLength
+
     /**
      * Prints a report of the compression efficiency.
      * 
@@ -156,6 +261,51 @@ public class HuffmanEncodingWithHeap {
                 computeCompressionLength(message, codes), message.length() * BITS_PER_BYTE);
     } // method reportEfficiency
 
+    /**
+     * Prints a report of the compression efficiency from a primitive encoding
+     * table.
+     * 
+     * @param message    The original message
+     * @param codeLength Array of code lengths
+     */
+    public static void reportEfficiency(String message, byte[] codeLength) {
+        System.out.printf("\nCompressed message requires %d bits versus %d bits for ASCII encoding.\n",
+                computeCompressionLength(message, codeLength), message.length() * BITS_PER_BYTE);
+    } // method reportEfficiency
+
+    /**
+     * Prints how many more bits the message needs when no code may be longer
+     * than maxLength bits, with lengths from LengthLimitedHuffman, compared to
+     * unrestricted Huffman codes. A message with more than 2^maxLength distinct
+     * symbols cannot be coded within the limit, so the limit is raised to the
+     * shortest one that can. A message of one symbol is counted at one bit per
+     * character on both sides, since a code needs at least one bit to take space.
+     * 
+     * @param message   The original message
+     * @param maxLength Longest code allowed
+     */
+    public static void reportLengthLimitCost(String message, int maxLength) {
+        int[] frequencies = countFrequency(message); // Get the frequency of each symbol in the message
+        int limit = Math.max(maxLength, LengthLimitedHuffman.shortestLimit(frequencies)); // Enough bits for every symbol
+        long[] codeBits = new long[ASCII8]; // Unrestricted Huffman codes
+        byte[] codeLength = new byte[ASCII8];
+        createCodeTable(buildTree(buildForest(frequencies)), codeBits, codeLength);
+        for (int symbol = 0; symbol < ASCII8; symbol++) { // A lone symbol is the root, with a 0-bit code
+            if (frequencies[symbol] > 0 && codeLength[symbol] == 0) {
+                codeLength[symbol] = 1; // Count it as 1 bit, as the limited lengths do
+            }
+        }
+        byte[] limitedLength = LengthLimitedHuffman.codeLengths(frequencies, limit); // Lengths within the limit
+        int unlimitedBits = computeCompressionLength(message, codeLength);
+        int limitedBits = computeCompressionLength(message, limitedLength);
+        double cost = 0.0; // Extra bits as a percentage of the unrestricted size
+        if (unlimitedBits > 0) {
+            cost = 100.0 * (limitedBits - unlimitedBits) / unlimitedBits;
+        }
+        System.out.printf("Codes of at most %d bits require %d bits versus %d bits without a limit (%.2f%% more).\n",
+                limit, limitedBits, unlimitedBits, cost);
+    } // method reportLengthLimitCost
+
     /**
      * Encodes a message using Huffman encoding.
      * 
@@ -165,9 +315,12 @@ public class HuffmanEncodingWithHeap {
         int[] frequencies = countFrequency(message); // Get the frequency of each symbol in the message
         MinHeap<HuffmanNode> heap = buildForest(frequencies); // Build the MinHeap of Huffman nodes from frequencies
         HuffmanNode huffmanTreeRoot = buildTree(heap); // Build the Huffman tree from the heap
-        String[] codes = createEncodingTable(huffmanTreeRoot); // Create the Huffman encoding table
-        displayCodes(codes); // Display the Huffman codes for each symbol
-        reportEfficiency(message, codes); // Report the efficiency of the compression
+        long[] codeBits = new long[ASCII8]; // Code of each symbol
+        byte[] codeLength = new byte[ASCII8]; // Length of the code of each symbol
+        createCodeTable(huffmanTreeRoot, codeBits, codeLength); // Create the Huffman encoding table
+        displayCodes(codeBits, codeLength); // Display the Huffman codes for each symbol
+        reportEfficiency(message, codeLength); // Report the efficiency of the compression
+        reportLengthLimitCost(message, LENGTH_LIMIT); // Report what limiting the code length would cost
     } // method encode
 
     /** Driver code */
@@ -0,0 +1,621 @@
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.zip.CRC32;
+
+/**
+ * Compresses files of any size with Huffman codes, a block at a time, so that
+ * memory use depends on the block size and not on the file size.
+ *
+ * The file is read through a FileChannel in blocks of blockSize bytes. Each
+ * block gets its own code table, built from that block's byte frequencies, and
+ * is stored as a coder id followed by that coder's output: HuffmanCodec or
+ * TansCodec, or per block whichever of them is smaller. Since a table adapts to
+ * its block, a log file whose content drifts over time still compresses well.
+ * After the blocks comes an index with the position and sizes of every block,
+ * so a reader can find and decode any block without touching the others. All
+ * numbers are big-endian. The layout is
+ *
+ * <pre>
+ * int    MAGIC
+ * byte   VERSION
+ * int    block size
+ * blocks, each:
+ *   byte   coder id, an index into CODERS
+ *   bytes  the coder's output
+ * index, per block:
+ *   long   position of the block in the file
+ *   int    compressed length
+ *   int    original length
+ *   int    CRC32 of the original bytes
+ * int    number of blocks
+ * long   position of the index
+ * int    MAGIC
+ * </pre>
+ *
+ * Because blocks are independent, compress and decompress also come in
+ * parallel versions that hand blocks to a ForkJoinPool. The parallel compressor
+ * writes the same bytes as the sequential one whatever the number of threads,
+ * since every block is encoded on its own and written in order.
+ *
+ * The checksum catches a damaged block whose coder output still decodes to
+ * the right number of bytes, which a coder cannot always detect on its own.
+ *
+ * Files of version 1 have no coder id; all their blocks are HuffmanCodec
+ * output. Files before version 3 have no checksums, so their blocks are only
+ * checked for length. Both are still read.
+ */
+public class HuffmanFileCompressor {
+
+    /** Identifies a compressed file ("HUF1") */
+    static final int MAGIC = 0x48554631;
+    /** Version of the layout above */
+    static final int VERSION = 3;
+    /** Oldest version that can still be read */
+    static final int MIN_VERSION = 1;
+    /** First version whose index holds a checksum of every block */
+    static final int CHECKSUM_VERSION = 3;
+    /** Bytes before the first block: magic, version and block size */
+    static final int HEADER_BYTES = Integer.BYTES + 1 + Integer.BYTES;
+    /** Bytes of one index entry */
+    static final int INDEX_ENTRY_BYTES = Long.BYTES + 3 * Integer.BYTES;
+    /** Bytes of one index entry before CHECKSUM_VERSION */
+    static final int OLD_INDEX_ENTRY_BYTES = Long.BYTES + 2 * Integer.BYTES;
+    /** Bytes after the index: block count, index position and magic */
+    static final int TRAILER_BYTES = Integer.BYTES + Long.BYTES + Integer.BYTES;
+    /** Block size used when none is given, 1 MB */
+    static final int DEFAULT_BLOCK_SIZE = 1 << 20;
+    /** Coders a block can be stored with, by coder id */
+    static final EntropyCoder[] CODERS = { HuffmanCodec.CODER, TansCodec.CODER };
+    /** Coder choices: a coder id, or SMALLEST to keep the smaller output */
+    static final int HUFFMAN = 0;
+    static final int TANS = 1;
+    static final int SMALLEST = -1;
+
+    /** Utility class, not meant to be instantiated */
+    private HuffmanFileCompressor() {
+    } // private constructor
+
+    /** One encoded block, with the checksum of the bytes it was encoded from */
+    static class EncodedBlock {
+        byte[] packed;
+        int checksum;
+
+        /**
+         * Constructor.
+         *
+         * @param packed   coder id followed by the coder's output
+         * @param checksum CRC32 of the original bytes
+         */
+        EncodedBlock(byte[] packed, int checksum) {
+            this.packed = packed;
+            this.checksum = checksum;
+        } // constructor
+    } // class EncodedBlock
+
+    /**
+     * Position, sizes and checksum of every block of a compressed file, kept in
+     * primitive arrays that grow as blocks are added.
+     */
+    static class BlockIndex {
+        int version;
+        int blockSize;
+        int count;
+        long[] positions;
+        int[] compressedLengths;
+        int[] originalLengths;
+        int[] checksums;
+
+        /**
+         * Constructor for an empty index.
+         *
+         * @param version   layout version of the file
+         * @param blockSize size of the uncompressed blocks
+         */
+        BlockIndex(int version, int blockSize) {
+            this.version = version;
+            this.blockSize = blockSize;
+            this.count = 0;
+            this.positions = new long[16];
+            this.compressedLengths = new int[16];
+            this.originalLengths = new int[16];
+            this.checksums = new int[16];
+        } // constructor
+
+        /**
+         * Record one more block.
+         *
+         * @param position         where the block starts in the file
+         * @param compressedLength bytes the block takes in the file
+         * @param originalLength   bytes the block decodes to
+         * @param checksum         CRC32 of the bytes the block decodes to, 0 in
+         *                         files without checksums
+         */
+        void add(long position, int compressedLength, int originalLength, int checksum) {
+            if (this.count == this.positions.length) {
+                this.positions = Arrays.copyOf(this.positions, 2 * this.count);
+                this.compressedLengths = Arrays.copyOf(this.compressedLengths, 2 * this.count);
+                this.originalLengths = Arrays.copyOf(this.originalLengths, 2 * this.count);
+                this.checksums = Arrays.copyOf(this.checksums, 2 * this.count);
+            }
+            this.positions[this.count] = position;
+            this.compressedLengths[this.count] = compressedLength;
+            this.originalLengths[this.count] = originalLength;
+            this.checksums[this.count] = checksum;
+            this.count++;
+        } // method add
+
+        /**
+         * Total size of the original file.
+         *
+         * @return sum of the original block lengths
+         */
+        long originalSize() {
+            long size = 0;
+            for (int i = 0; i < this.count; i++) {
+                size += this.originalLengths[i];
+            }
+            return size;
+        } // method originalSize
+
+        /**
+         * Append the index and the trailer to a compressed file.
+         *
+         * @param channel  file being written
+         * @param position where the index starts
+         * @throws IOException if the file cannot be written
+         */
+        void write(FileChannel channel, long position) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(this.count * INDEX_ENTRY_BYTES + TRAILER_BYTES);
+            for (int i = 0; i < this.count; i++) {
+                buffer.putLong(this.positions[i]);
+                buffer.putInt(this.compressedLengths[i]);
+                buffer.putInt(this.originalLengths[i]);
+                buffer.putInt(this.checksums[i]);
+            }
+            buffer.putInt(this.count);
+            buffer.putLong(position);
+            buffer.putInt(MAGIC);
+            buffer.flip();
+            writeFully(channel, buffer, position);
+        } // method write
+
+        /**
+         * Read the header and index of a compressed file.
+         *
+         * @param channel file to read
+         * @return the index
+         * @throws IOException if the file cannot be read or is not a compressed
+         *                     file
+         */
+        static BlockIndex read(FileChannel channel) throws IOException {
+            long size = channel.size();
+            if (size < HEADER_BYTES + TRAILER_BYTES) {
+                throw new IOException("Not a Huffman-compressed file");
+            }
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            readFully(channel, header, 0);
+            ByteBuffer trailer = ByteBuffer.allocate(TRAILER_BYTES);
+            readFully(channel, trailer, size - TRAILER_BYTES);
+            int magic = header.getInt();
+            int version = header.get();
+            if (magic != MAGIC || trailer.getInt(TRAILER_BYTES - Integer.BYTES) != MAGIC) {
+                throw new IOException("Not a Huffman-compressed file");
+            }
+            if (version < MIN_VERSION || version > VERSION) {
+                throw new IOException("Unsupported version " + version);
+            }
+            int count = trailer.getInt();
+            long position = trailer.getLong();
+            int entryBytes = version >= CHECKSUM_VERSION ? INDEX_ENTRY_BYTES : OLD_INDEX_ENTRY_BYTES;
+            if (count < 0 || position < HEADER_BYTES
+                    || position + (long) count * entryBytes != size - TRAILER_BYTES) {
+                throw new IOException("Corrupt block index");
+            }
+            BlockIndex index = new BlockIndex(version, header.getInt());
+            ByteBuffer entries = ByteBuffer.allocate(count * entryBytes);
+            readFully(channel, entries, position);
+            for (int i = 0; i < count; i++) {
+                long blockPosition = entries.getLong();
+                int compressedLength = entries.getInt();
+                int originalLength = entries.getInt();
+                int checksum = version >= CHECKSUM_VERSION ? entries.getInt() : 0;
+                index.add(blockPosition, compressedLength, originalLength, checksum);
+            }
+            return index;
+        } // method read
+
+    } // class BlockIndex
+
+    /**
+     * Compress a file with the default block size.
+     *
+     * @param source file to compress
+     * @param target compressed file; replaced if it exists
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void compress(Path source, Path target) throws IOException {
+        compress(source, target, DEFAULT_BLOCK_SIZE);
+    } // method compress
+
+    /**
+     * Compress a file one block at a time. Only one block and its compressed
+     * form are held in memory at once.
+     *
+     * @param source    file to compress
+     * @param target    compressed file; replaced if it exists
+     * @param blockSize bytes per block
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void compress(Path source, Path target, int blockSize) throws IOException {
+        compress(source, target, blockSize, HUFFMAN);
+    } // method compress
+
+    /**
+     * Compress a file one block at a time with a chosen coder. With SMALLEST
+     * every block is encoded by every coder and the smallest output is kept.
+     *
+     * @param source    file to compress
+     * @param target    compressed file; replaced if it exists
+     * @param blockSize bytes per block
+     * @param coder     HUFFMAN, TANS or SMALLEST
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void compress(Path source, Path target, int blockSize, int coder) throws IOException {
+        checkArguments(blockSize, coder);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).put((byte) VERSION).putInt(blockSize).flip();
+            writeFully(out, header, 0);
+
+            BlockIndex index = new BlockIndex(VERSION, blockSize);
+            byte[] block = new byte[blockSize];
+            long position = HEADER_BYTES;
+            long remaining = in.size();
+            long readPosition = 0;
+            while (remaining > 0) {
+                int length = (int) Math.min(blockSize, remaining);
+                EncodedBlock encoded = encodeBlock(in, readPosition, length, block, coder);
+                writeFully(out, ByteBuffer.wrap(encoded.packed), position);
+                index.add(position, encoded.packed.length, length, encoded.checksum);
+                position += encoded.packed.length;
+                readPosition += length;
+                remaining -= length;
+            }
+            index.write(out, position);
+        }
+    } // method compress
+
+    /**
+     * Compress a file with blocks encoded in parallel. Each task reads its own
+     * block, counts its frequencies, builds its tree and encodes it; the results
+     * are written in block order. At most two blocks per worker are in flight, so
+     * memory stays bounded as in the sequential version, and the output is
+     * identical to it.
+     *
+     * @param source    file to compress
+     * @param target    compressed file; replaced if it exists
+     * @param blockSize bytes per block
+     * @param pool      runs the block tasks; it is not shut down
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void compress(Path source, Path target, int blockSize, ForkJoinPool pool) throws IOException {
+        compress(source, target, blockSize, pool, HUFFMAN);
+    } // method compress
+
+    /**
+     * Compress a file with blocks encoded in parallel by a chosen coder.
+     *
+     * @param source    file to compress
+     * @param target    compressed file; replaced if it exists
+     * @param blockSize bytes per block
+     * @param pool      runs the block tasks; it is not shut down
+     * @param coder     HUFFMAN, TANS or SMALLEST
+     * @throws IOException if a file cannot be read or written
+     */
+    public static void compress(Path source, Path target, int blockSize, ForkJoinPool pool, int coder)
+            throws IOException {
+        checkArguments(blockSize, coder);
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES);
+            header.putInt(MAGIC).put((byte) VERSION).putInt(blockSize).flip();
+            writeFully(out, header, 0);
+
+            BlockIndex index = new BlockIndex(VERSION, blockSize);
+            int window = 2 * pool.getParallelism();
+            ArrayDeque<Future<EncodedBlock>> inFlight = new ArrayDeque<>();
+            ArrayDeque<Integer> lengths = new ArrayDeque<>();
+            long size = in.size();
+            long readPosition = 0;
+            long position = HEADER_BYTES;
+            while (readPosition < size || !inFlight.isEmpty()) {
+                // Keep the window full, then write out the oldest block
+                while (readPosition < size && inFlight.size() < window) {
+                    long start = readPosition;
+                    int length = (int) Math.min(blockSize, size - start);
+                    inFlight.add(pool.submit(() -> encodeBlock(in, start, length, new byte[length], coder)));
+                    lengths.add(length);
+                    readPosition += length;
+                }
+                EncodedBlock encoded = await(inFlight.remove(), source);
+                writeFully(out, ByteBuffer.wrap(encoded.packed), position);
+                index.add(position, encoded.packed.length, lengths.remove(), encoded.checksum);
+                position += encoded.packed.length;
+            }
+            index.write(out, position);
+        }
+    } // method compress
+
+    /**
+     * Restore a file compressed by compress, one block at a time.
+     *
+     * @param source compressed file
+     * @param target restored file; replaced if it exists
+     * @throws IOException if a file cannot be read or written, or source is not
+     *                     a valid compressed file
+     */
+    public static void decompress(Path source, Path target) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BlockIndex index = BlockIndex.read(in);
+            long position = 0;
+            for (int i = 0; i < index.count; i++) {
+                byte[] block = decodeBlock(in, index, i);
+                writeFully(out, ByteBuffer.wrap(block), position);
+                position += block.length;
+            }
+        }
+    } // method decompress
+
+    /**
+     * Restore a file compressed by compress with blocks decoded in parallel.
+     * Each block's place in the output follows from the index, so tasks write
+     * their blocks directly and in any order.
+     *
+     * @param source compressed file
+     * @param target restored file; replaced if it exists
+     * @param pool   runs the block tasks; it is not shut down
+     * @throws IOException if a file cannot be read or written, or source is not
+     *                     a valid compressed file
+     */
+    public static void decompress(Path source, Path target, ForkJoinPool pool) throws IOException {
+        try (FileChannel in = FileChannel.open(source, StandardOpenOption.READ);
+                FileChannel out = FileChannel.open(target, StandardOpenOption.WRITE,
+                        StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            BlockIndex index = BlockIndex.read(in);
+            int window = 2 * pool.getParallelism();
+            ArrayDeque<Future<Void>> inFlight = new ArrayDeque<>();
+            long position = 0;
+            for (int i = 0; i < index.count; i++) {
+                if (inFlight.size() == window) {
+                    await(inFlight.remove(), source);
+                }
+                int block = i;
+                long start = position;
+                inFlight.add(pool.submit(() -> {
+                    writeFully(out, ByteBuffer.wrap(decodeBlock(in, index, block)), start);
+                    return null;
+                }));
+                position += index.originalLengths[i];
+            }
+            while (!inFlight.isEmpty()) {
+                await(inFlight.remove(), source);
+            }
+        }
+    } // method decompress
+
+    /**
+     * Read and encode one block of a file.
+     *
+     * @param channel  file to compress
+     * @param position where the block starts
+     * @param length   bytes in the block
+     * @param buffer   room for at least length bytes
+     * @param coder    HUFFMAN, TANS or SMALLEST
+     * @return the coder id followed by the coder's output, and the checksum
+     * @throws IOException if the block cannot be read
+     */
+    static EncodedBlock encodeBlock(FileChannel channel, long position, int length, byte[] buffer, int coder)
+            throws IOException {
+        readFully(channel, ByteBuffer.wrap(buffer, 0, length), position);
+        int chosen = coder;
+        byte[] best = null;
+        for (int id = 0; id < CODERS.length; id++) {
+            if (coder == SMALLEST || coder == id) {
+                byte[] packed = CODERS[id].encode(buffer, 0, length);
+                if (best == null || packed.length < best.length) {
+                    best = packed;
+                    chosen = id;
+                }
+            }
+        }
+        byte[] block = new byte[1 + best.length];
+        block[0] = (byte) chosen;
+        System.arraycopy(best, 0, block, 1, best.length);
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer, 0, length);
+        return new EncodedBlock(block, (int) checksum.getValue());
+    } // method encodeBlock
+
+    /**
+     * Read and decode one block of a compressed file.
+     *
+     * @param channel compressed file
+     * @param index   the file's index
+     * @param block   number of the block
+     * @return the original bytes of the block
+     * @throws IOException if the block cannot be read, or does not decode to
+     *                     its recorded length and checksum
+     */
+    static byte[] decodeBlock(FileChannel channel, BlockIndex index, int block) throws IOException {
+        byte[] packed = new byte[index.compressedLengths[block]];
+        readFully(channel, ByteBuffer.wrap(packed), index.positions[block]);
+        byte[] original;
+        try {
+            if (index.version == MIN_VERSION) {
+                original = HuffmanCodec.decode(packed);
+            } else if (packed.length == 0 || (packed[0] & 0xFF) >= CODERS.length) {
+                throw new IOException("Block " + block + " has no valid coder id");
+            } else {
+                original = CODERS[packed[0]].decode(Arrays.copyOfRange(packed, 1, packed.length));
+            }
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Corrupt block " + block, e);
+        }
+        if (original.length != index.originalLengths[block]) {
+            throw new IOException("Block " + block + " decodes to " + original.length
+                    + " bytes instead of " + index.originalLengths[block]);
+        }
+        if (index.version >= CHECKSUM_VERSION) {
+            CRC32 checksum = new CRC32();
+            checksum.update(original, 0, original.length);
+            if ((int) checksum.getValue() != index.checksums[block]) {
+                throw new IOException("Block " + block + " fails its checksum");
+            }
+        }
+        return original;
+    } // method decodeBlock
+
+    /**
+     * Reject a block size or coder choice that compress cannot use.
+     *
+     * @param blockSize bytes per block
+     * @param coder     coder choice
+     */
+    private static void checkArguments(int blockSize, int coder) {
+        if (blockSize <= 0) {
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        }
+        if (coder < SMALLEST || coder >= CODERS.length) {
+            throw new IllegalArgumentException("Unknown coder: " + coder);
+        }
+    } // helper method checkArguments
+
+    /**
+     * Wait for a block task and hand back its result, unwrapping its failure.
+     *
+     * @param task the task
+     * @param file file being processed, for error messages
+     * @return the task's result
+     * @throws IOException if the task failed or the wait was interrupted
+     */
+    private static <T> T await(Future<T> task, Path file) throws IOException {
+        try {
+            return task.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while processing " + file);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof IOException) {
+                throw (IOException) e.getCause();
+            }
+            throw new IOException("Failed to process " + file, e.getCause());
+        }
+    } // helper method await
+
+    /**
+     * Fill a buffer from a file position, looping over short reads.
+     *
+     * @param channel  file to read
+     * @param buffer   buffer to fill up to its limit
+     * @param position where to start reading
+     * @throws IOException if the file ends first
+     */
+    static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("Unexpected end of file at " + position);
+            }
+            position += read;
+        }
+        buffer.flip();
+    } // method readFully
+
+    /**
+     * Write a whole buffer at a file position, looping over short writes.
+     *
+     * @param channel  file to write
+     * @param buffer   bytes to write, from position to limit
+     * @param position where to start writing
+     * @throws IOException if the file cannot be written
+     */
+    static void writeFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            position += channel.write(buffer, position);
+        }
+    } // method writeFully
+
+    /**
+     * Driver code. With arguments "-c source target" or "-d source target" it
+     * compresses or restores a file, using every core when the option is -pc or
+     * -pd; without arguments it round-trips a generated log file.
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 3 && args[0].equals("-c")) {
+            compress(Path.of(args[1]), Path.of(args[2]));
+        } else if (args.length == 3 && args[0].equals("-d")) {
+            decompress(Path.of(args[1]), Path.of(args[2]));
+        } else if (args.length == 3 && args[0].equals("-pc")) {
+            compress(Path.of(args[1]), Path.of(args[2]), DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+        } else if (args.length == 3 && args[0].equals("-pd")) {
+            decompress(Path.of(args[1]), Path.of(args[2]), ForkJoinPool.commonPool());
+        } else {
+            Path original = Files.createTempFile("huffman", ".log");
+            Path packed = Files.createTempFile("huffman", ".huf");
+            Path restored = Files.createTempFile("huffman", ".out");
+            try {
+                StringBuilder log = new StringBuilder();
+                Random random = new Random(271);
+                String[] levels = { "INFO", "INFO", "INFO", "WARN", "ERROR" };
+                for (int line = 0; line < 50_000; line++) {
+                    log.append("2024-05-").append(10 + line / 5000).append(' ')
+                            .append(levels[random.nextInt(levels.length)])
+                            .append(" request ").append(random.nextInt(100_000))
+                            .append(" served in ").append(random.nextInt(500)).append(" ms\n");
+                }
+                Files.writeString(original, log);
+                compress(original, packed, 256 * 1024);
+                byte[] sequential = Files.readAllBytes(packed);
+                decompress(packed, restored);
+                System.out.printf("Compressed %d bytes into %d bytes.%n", Files.size(original), Files.size(packed));
+                System.out.println("Round trip matches: "
+                        + Arrays.equals(Files.readAllBytes(original), Files.readAllBytes(restored)));
+                compress(original, packed, 256 * 1024, ForkJoinPool.commonPool());
+                decompress(packed, restored, ForkJoinPool.commonPool());
+                System.out.println("Parallel output matches sequential: "
+                        + Arrays.equals(sequential, Files.readAllBytes(packed)));
+                System.out.println("Parallel round trip matches: "
+                        + Arrays.equals(Files.readAllBytes(original), Files.readAllBytes(restored)));
+                String[] names = { "Huffman", "tANS", "smallest" };
+                int[] coders = { HUFFMAN, TANS, SMALLEST };
+                for (int i = 0; i < coders.length; i++) {
+                    compress(original, packed, 256 * 1024, coders[i]);
+                    decompress(packed, restored);
+                    System.out.printf("%-8s: %d bytes, round trip matches: %b%n", names[i], Files.size(packed),
+                            Arrays.equals(Files.readAllBytes(original), Files.readAllBytes(restored)));
+                }
+            } finally {
+                Files.deleteIfExists(original);
+                Files.deleteIfExists(packed);
+                Files.deleteIfExists(restored);
+            }
+        }
+    } // method main
+
+} // class HuffmanFileCompressor
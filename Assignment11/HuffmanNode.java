@@ -4,6 +4,10 @@ public class HuffmanNode implements Comparable<HuffmanNode> {
     private int frequency;
     private HuffmanNode left;
     private HuffmanNode right;
+    // Used by adaptive coding only: the parent, and the node's place in the
+    // sibling order of AdaptiveHuffman
+    private HuffmanNode parent;
+    private int order;
 
     // Constructors
 
@@ -26,6 +30,26 @@ public class HuffmanNode implements Comparable<HuffmanNode> {
         return frequency;
     }
 
+    public void incrementFrequency() {
+        this.frequency++;
+    }
+
+    public HuffmanNode getParent() {
+        return parent;
+    }
+
+    public void setParent(HuffmanNode parent) {
+        this.parent = parent;
+    }
+
+    public int getOrder() {
+        return order;
+    }
+
+    public void setOrder(int order) {
+        this.order = order;
+    }
+
     public boolean hasLeft() {
         return this.left != null;
     }
@@ -0,0 +1,198 @@
+import java.util.Arrays;
+
+/**
+ * Builds optimal prefix codes whose lengths do not exceed a given maximum.
+ *
+ * Huffman's algorithm gives the shortest possible encoding, but on very skewed
+ * frequencies (Fibonacci-like counts, for instance) its codes can grow to dozens
+ * of bits, too long for a fixed-width bit buffer or a single decode table. The
+ * package-merge algorithm finds, among all codes no longer than the limit, one
+ * with the smallest total encoded length; when the limit is not binding the
+ * result is as good as Huffman's.
+ *
+ * Package-merge works on lists of items, one list per allowed code length.
+ * The deepest list holds the symbols sorted by frequency. Each shallower list
+ * merges the symbols again with "packages" made by pairing up consecutive items
+ * of the list below. Taking the 2n - 2 lightest items of the shallowest list
+ * and following the packages back down tells how many lists each symbol is
+ * selected in, which is its code length. Because the symbols are sorted, the
+ * symbols selected in any list are always the lightest ones, so it is enough to
+ * count them per list.
+ */
+public class LengthLimitedHuffman {
+
+    /** Utility class, not meant to be instantiated */
+    private LengthLimitedHuffman() {
+    } // private constructor
+
+    /**
+     * Compute optimal code lengths no longer than maxLength.
+     *
+     * @param frequencies count of each symbol
+     * @param maxLength   longest code allowed
+     * @return code length of each symbol, 0 for symbols with frequency 0
+     * @throws IllegalArgumentException if maxLength bits cannot give every used
+     *                                  symbol its own code
+     */
+    public static byte[] codeLengths(int[] frequencies, int maxLength) {
+        byte[] lengths = new byte[frequencies.length];
+        int[] symbols = sortByFrequency(frequencies);
+        int n = symbols.length;
+        if (n == 1) {
+            lengths[symbols[0]] = 1;
+        } else if (n > 1) {
+            if (maxLength < shortestLimit(n)) {
+                throw new IllegalArgumentException(n + " symbols do not fit in codes of " + maxLength + " bits");
+            }
+            long[] leafWeights = new long[n];
+            for (int i = 0; i < n; i++) {
+                leafWeights[i] = frequencies[symbols[i]];
+            }
+            // Lists from the deepest (index maxLength - 1) to the shallowest (0);
+            // for each item, its weight and whether it is a leaf
+            long[][] weights = new long[maxLength][];
+            boolean[][] isLeaf = new boolean[maxLength][];
+            weights[maxLength - 1] = leafWeights;
+            isLeaf[maxLength - 1] = new boolean[n];
+            Arrays.fill(isLeaf[maxLength - 1], true);
+            for (int level = maxLength - 2; level >= 0; level--) {
+                long[] below = weights[level + 1];
+                int packages = below.length / 2;
+                long[] merged = new long[n + packages];
+                boolean[] leaf = new boolean[n + packages];
+                int leafIndex = 0;
+                int packageIndex = 0;
+                for (int i = 0; i < merged.length; i++) {
+                    // Leaves win ties, which keeps codes short for equal weights
+                    if (packageIndex == packages || (leafIndex < n
+                            && leafWeights[leafIndex] <= below[2 * packageIndex] + below[2 * packageIndex + 1])) {
+                        merged[i] = leafWeights[leafIndex++];
+                        leaf[i] = true;
+                    } else {
+                        merged[i] = below[2 * packageIndex] + below[2 * packageIndex + 1];
+                        packageIndex++;
+                    }
+                }
+                weights[level] = merged;
+                isLeaf[level] = leaf;
+            }
+            // Follow the selection from the shallowest list down
+            int selected = 2 * n - 2;
+            for (int level = 0; level < maxLength && selected > 0; level++) {
+                int leaves = 0;
+                for (int i = 0; i < selected; i++) {
+                    if (isLeaf[level][i]) {
+                        leaves++;
+                    }
+                }
+                for (int i = 0; i < leaves; i++) {
+                    lengths[symbols[i]]++;
+                }
+                selected = 2 * (selected - leaves);
+            }
+        }
+        return lengths;
+    } // method codeLengths
+
+    /**
+     * Compute the encoded size of the symbols with the given code lengths.
+     *
+     * @param frequencies count of each symbol
+     * @param lengths     code length of each symbol
+     * @return total number of bits
+     */
+    public static long encodedBits(int[] frequencies, byte[] lengths) {
+        long bits = 0;
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            bits += (long) frequencies[symbol] * (lengths[symbol] & 0xFF);
+        }
+        return bits;
+    } // method encodedBits
+
+    /**
+     * Find the longest of a set of code lengths.
+     *
+     * @param lengths code length of each symbol
+     * @return the largest length, 0 if there are none
+     */
+    public static int maxLength(byte[] lengths) {
+        int longest = 0;
+        for (byte length : lengths) {
+            longest = Math.max(longest, length & 0xFF);
+        }
+        return longest;
+    } // method maxLength
+
+    /**
+     * Find the smallest maxLength that codeLengths accepts for these
+     * frequencies: enough bits to give every used symbol its own code.
+     *
+     * @param frequencies count of each symbol
+     * @return ceil(log2(n)) for n used symbols, and at least 1
+     */
+    public static int shortestLimit(int[] frequencies) {
+        int used = 0;
+        for (int frequency : frequencies) {
+            if (frequency > 0) {
+                used++;
+            }
+        }
+        return shortestLimit(used);
+    } // method shortestLimit
+
+    /**
+     * Find the fewest bits that give n symbols a code each.
+     *
+     * @param n number of symbols
+     * @return ceil(log2(n)), and at least 1
+     */
+    private static int shortestLimit(int n) {
+        int bits = 1;
+        if (n > 1) {
+            bits = Integer.SIZE - Integer.numberOfLeadingZeros(n - 1);
+        }
+        return bits;
+    } // helper method shortestLimit
+
+    /**
+     * List the used symbols from least to most frequent, ties by symbol value.
+     *
+     * @param frequencies count of each symbol
+     * @return the symbols with a non-zero count, sorted
+     */
+    private static int[] sortByFrequency(int[] frequencies) {
+        // Sort (frequency, symbol) pairs packed into longs
+        int used = 0;
+        long[] keys = new long[frequencies.length];
+        for (int symbol = 0; symbol < frequencies.length; symbol++) {
+            if (frequencies[symbol] > 0) {
+                keys[used++] = ((long) frequencies[symbol] << Integer.SIZE) | symbol;
+            }
+        }
+        Arrays.sort(keys, 0, used);
+        int[] symbols = new int[used];
+        for (int i = 0; i < used; i++) {
+            symbols[i] = (int) keys[i];
+        }
+        return symbols;
+    } // helper method sortByFrequency
+
+    /** Driver code: limits the codes of Fibonacci frequencies */
+    public static void main(String[] args) {
+        int[] frequencies = new int[32];
+        frequencies[0] = 1;
+        frequencies[1] = 1;
+        for (int i = 2; i < frequencies.length; i++) {
+            frequencies[i] = frequencies[i - 1] + frequencies[i - 2];
+        }
+        byte[] huffman = HuffmanCodec.codeLengths(frequencies);
+        System.out.printf("Huffman: longest code %d bits, %d bits in total%n",
+                maxLength(huffman), encodedBits(frequencies, huffman));
+        for (int limit = 24; limit >= 8; limit -= 4) {
+            byte[] limited = codeLengths(frequencies, limit);
+            System.out.printf("Limit %2d: longest code %d bits, %d bits in total%n",
+                    limit, maxLength(limited), encodedBits(frequencies, limited));
+        }
+    } // method main
+
+} // class LengthLimitedHuffman
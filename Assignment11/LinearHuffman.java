@@ -0,0 +1,240 @@
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Builds Huffman codes in linear time once the symbols are sorted by
+ * frequency, which matters when a new code is built for every block of a file.
+ *
+ * Merging two nodes always produces a node at least as heavy as every node
+ * merged before it, so merged nodes come out in sorted order by themselves.
+ * With the leaves in one sorted queue and merged nodes appended to a second
+ * queue, the two lightest nodes are always at the front of the queues: no
+ * search and no heap are needed. The leaves are sorted once, by counting sort
+ * when the frequencies are small enough.
+ *
+ * codeLengths goes further and, following Moffat and Katajainen, computes the
+ * code lengths inside a single array without creating any HuffmanNode: the
+ * array first holds the sorted weights, then the parent of every merged node,
+ * then node depths, and finally the code lengths.
+ */
+public class LinearHuffman {
+
+    /** Frequencies up to this value are sorted by counting sort */
+    static final int COUNTING_SORT_LIMIT = 1 << 16;
+
+    private static volatile long blackhole;
+
+    /** Utility class, not meant to be instantiated */
+    private LinearHuffman() {
+    } // private constructor
+
+    /**
+     * Build a Huffman tree with the two-queue method.
+     *
+     * @param frequencies count of each symbol
+     * @return the root of the tree, or null if no symbol occurs
+     */
+    public static HuffmanNode buildTree(int[] frequencies) {
+        ArrayDeque<HuffmanNode> leaves = new ArrayDeque<>();
+        for (int symbol : sortSymbols(frequencies)) {
+            leaves.add(new HuffmanNode((char) symbol, frequencies[symbol]));
+        }
+        ArrayDeque<HuffmanNode> merged = new ArrayDeque<>();
+        while (leaves.size() + merged.size() > 1) {
+            HuffmanNode t1 = lightest(leaves, merged);
+            HuffmanNode t2 = lightest(leaves, merged);
+            HuffmanNode combined = new HuffmanNode(t1.getFrequency() + t2.getFrequency());
+            combined.setLeft(t1);
+            combined.setRight(t2);
+            merged.add(combined);
+        }
+        HuffmanNode root = leaves.poll();
+        if (root == null) {
+            root = merged.poll();
+        }
+        return root;
+    } // method buildTree
+
+    /**
+     * Compute Huffman code lengths in place, without building a tree. A lone
+     * symbol gets a 1-bit code.
+     *
+     * @param frequencies count of each symbol
+     * @return code length of each symbol, 0 for symbols that do not occur
+     */
+    public static byte[] codeLengths(int[] frequencies) {
+        byte[] lengths = new byte[frequencies.length];
+        int[] symbols = sortSymbols(frequencies);
+        int n = symbols.length;
+        if (n == 1) {
+            lengths[symbols[0]] = 1;
+        } else if (n > 1) {
+            long[] a = new long[n];
+            for (int i = 0; i < n; i++) {
+                a[i] = frequencies[symbols[i]];
+            }
+            // Phase 1: merge, leaving in a[next] the weight of the next merged node
+            // and replacing each merged node that gets used by its parent's index
+            a[0] += a[1];
+            int root = 0;
+            int leaf = 2;
+            for (int next = 1; next < n - 1; next++) {
+                if (leaf >= n || a[root] < a[leaf]) {
+                    a[next] = a[root];
+                    a[root++] = next;
+                } else {
+                    a[next] = a[leaf++];
+                }
+                if (leaf >= n || (root < next && a[root] < a[leaf])) {
+                    a[next] += a[root];
+                    a[root++] = next;
+                } else {
+                    a[next] += a[leaf++];
+                }
+            }
+            // Phase 2: turn parent indices into depths, from the root down
+            a[n - 2] = 0;
+            for (int next = n - 3; next >= 0; next--) {
+                a[next] = a[(int) a[next]] + 1;
+            }
+            // Phase 3: count the merged nodes at each depth; the free slots at a
+            // depth are leaves, assigned from the heaviest leaf down
+            int available = 1;
+            int used = 0;
+            int depth = 0;
+            root = n - 2;
+            int next = n - 1;
+            while (available > 0) {
+                while (root >= 0 && a[root] == depth) {
+                    used++;
+                    root--;
+                }
+                while (available > used) {
+                    a[next--] = depth;
+                    available--;
+                }
+                available = 2 * used;
+                depth++;
+                used = 0;
+            }
+            for (int i = 0; i < n; i++) {
+                lengths[symbols[i]] = (byte) a[i];
+            }
+        }
+        return lengths;
+    } // method codeLengths
+
+    /**
+     * List the used symbols from least to most frequent, ties by symbol value,
+     * with a counting sort when the largest frequency allows it.
+     *
+     * @param frequencies count of each symbol
+     * @return the symbols with a non-zero count, sorted
+     */
+    static int[] sortSymbols(int[] frequencies) {
+        int used = 0;
+        int largest = 0;
+        for (int frequency : frequencies) {
+            if (frequency > 0) {
+                used++;
+                largest = Math.max(largest, frequency);
+            }
+        }
+        int[] symbols = new int[used];
+        if (largest <= COUNTING_SORT_LIMIT) {
+            // Count symbols per frequency, turn the counts into starting positions,
+            // then drop every symbol into its place
+            int[] start = new int[largest + 2];
+            for (int frequency : frequencies) {
+                if (frequency > 0) {
+                    start[frequency + 1]++;
+                }
+            }
+            for (int frequency = 1; frequency < start.length; frequency++) {
+                start[frequency] += start[frequency - 1];
+            }
+            for (int symbol = 0; symbol < frequencies.length; symbol++) {
+                if (frequencies[symbol] > 0) {
+                    symbols[start[frequencies[symbol]]++] = symbol;
+                }
+            }
+        } else {
+            long[] keys = new long[used];
+            int index = 0;
+            for (int symbol = 0; symbol < frequencies.length; symbol++) {
+                if (frequencies[symbol] > 0) {
+                    keys[index++] = ((long) frequencies[symbol] << Integer.SIZE) | symbol;
+                }
+            }
+            Arrays.sort(keys);
+            for (int i = 0; i < used; i++) {
+                symbols[i] = (int) keys[i];
+            }
+        }
+        return symbols;
+    } // helper method sortSymbols
+
+    /**
+     * Remove the lighter of the two queue heads; a leaf wins a tie.
+     *
+     * @param leaves sorted leaves not yet merged
+     * @param merged merged nodes, in the order they were made
+     * @return the lightest node
+     */
+    private static HuffmanNode lightest(ArrayDeque<HuffmanNode> leaves, ArrayDeque<HuffmanNode> merged) {
+        HuffmanNode node;
+        if (merged.isEmpty() || (!leaves.isEmpty() && leaves.peek().compareTo(merged.peek()) <= 0)) {
+            node = leaves.poll();
+        } else {
+            node = merged.poll();
+        }
+        return node;
+    } // helper method lightest
+
+    /** Driver code: times every tree construction on 256-symbol frequencies */
+    public static void main(String[] args) {
+        Random random = new Random(271);
+        int rounds = 20_000;
+        int[][] tables = new int[rounds][256];
+        for (int[] frequencies : tables) {
+            for (int symbol = 0; symbol < 256; symbol++) {
+                frequencies[symbol] = 1 + (int) (Math.pow(random.nextDouble(), 4) * 4096);
+            }
+        }
+        long sink = 0;
+        for (int pass = 0; pass < 3; pass++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < rounds / 10; i++) {
+                sink += HuffmanEncoding.buildTree(HuffmanEncoding.buildForest(tables[i])).getFrequency();
+            }
+            long scan = (System.nanoTime() - start) * 10;
+            start = System.nanoTime();
+            for (int[] frequencies : tables) {
+                sink += HuffmanEncodingWithHeap.buildTree(HuffmanEncodingWithHeap.buildForest(frequencies)).getFrequency();
+            }
+            long heap = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int[] frequencies : tables) {
+                sink += buildTree(frequencies).getFrequency();
+            }
+            long queues = System.nanoTime() - start;
+            start = System.nanoTime();
+            for (int[] frequencies : tables) {
+                sink += codeLengths(frequencies)[0];
+            }
+            long inPlace = System.nanoTime() - start;
+            System.out.printf("us per code: scan %.1f, heap %.1f, two queues %.1f, in place %.1f%n",
+                    scan / 1e3 / rounds, heap / 1e3 / rounds, queues / 1e3 / rounds, inPlace / 1e3 / rounds);
+        }
+        blackhole = sink;
+        long[] codeBits = new long[256];
+        byte[] heapLengths = new byte[256];
+        HuffmanEncodingWithHeap.createCodeTable(
+                HuffmanEncodingWithHeap.buildTree(HuffmanEncodingWithHeap.buildForest(tables[0])), codeBits, heapLengths);
+        System.out.println("Same total bits as the heap: "
+                + (LengthLimitedHuffman.encodedBits(tables[0], codeLengths(tables[0]))
+                        == LengthLimitedHuffman.encodedBits(tables[0], heapLengths)));
+    } // method main
+
+} // class LinearHuffman
@@ -0,0 +1,381 @@
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Random;
+
+/**
+ * Compresses data with a table-based asymmetric numeral system (tANS), the
+ * coder behind FSE. Where Huffman codes spend a whole number of bits on every
+ * symbol, tANS spends fractional bits on average, so a symbol that makes up 90%
+ * of the data costs about 0.15 bits instead of 1.
+ *
+ * The byte frequencies are first normalized so that they add up to a table
+ * size L = 2^tableLog. Every state 0..L-1 of the decoder belongs to one symbol,
+ * each symbol getting as many states as its normalized count, spread evenly
+ * over the table. Decoding a symbol is one table lookup: the entry gives the
+ * symbol, how many bits to read and the base of the next state. Encoding runs
+ * backwards over the data, so that the decoder can run forwards. The layout is
+ *
+ * <pre>
+ * byte      FORMAT
+ * int       number of bytes in the original message
+ * byte      tableLog
+ * short     number of symbols present, k
+ * k times:  byte symbol, short normalized count
+ * bits      final encoder state (tableLog bits), then the bits of every
+ *           symbol, most significant bit first, zero-padded
+ * </pre>
+ */
+public class TansCodec {
+
+    /** Identifies the layout above */
+    static final int FORMAT = 2;
+    /** Largest and default table sizes, as powers of two */
+    static final int MAX_TABLE_LOG = 12;
+    static final int DEFAULT_TABLE_LOG = 11;
+    // Smallest table size worth using
+    private static final int MIN_TABLE_LOG = 5;
+    // Field widths in bits
+    private static final int BYTE_BITS = 8;
+    private static final int SHORT_BITS = 16;
+    private static final int INT_BITS = 32;
+    // Layout of a decode table entry: next state base, bits to read, symbol
+    private static final int BITS_SHIFT = 16;
+    private static final int SYMBOL_SHIFT = 24;
+    private static final int BASE_MASK = 0xFFFF;
+    private static final int BITS_MASK = 0xFF;
+
+    /** The coder as an EntropyCoder, for choosing coders per block */
+    static final EntropyCoder CODER = new EntropyCoder() {
+        @Override
+        public byte[] encode(byte[] data, int offset, int length) {
+            return TansCodec.encode(data, offset, length);
+        }
+
+        @Override
+        public byte[] decode(byte[] packed) {
+            return TansCodec.decode(packed);
+        }
+    };
+
+    /** Utility class, not meant to be instantiated */
+    private TansCodec() {
+    } // private constructor
+
+    /**
+     * Compress a string, encoded as UTF-8.
+     *
+     * @param message text to compress
+     * @return compressed bytes
+     */
+    public static byte[] encode(String message) {
+        return encode(message.getBytes(StandardCharsets.UTF_8));
+    } // method encode
+
+    /**
+     * Compress a byte array.
+     *
+     * @param data bytes to compress
+     * @return compressed bytes
+     */
+    public static byte[] encode(byte[] data) {
+        return encode(data, 0, data.length);
+    } // method encode
+
+    /**
+     * Compress a range of a byte array.
+     *
+     * @param data   bytes to compress
+     * @param offset first byte of the range
+     * @param length number of bytes in the range
+     * @return compressed bytes
+     */
+    public static byte[] encode(byte[] data, int offset, int length) {
+        int[] frequencies = Histogram.count(data, offset, length);
+        int tableLog = chooseTableLog(frequencies, length);
+        int[] normalized = normalize(frequencies, tableLog);
+        int tableSize = 1 << tableLog;
+
+        // Per symbol: where its states start in the state table, and the constant
+        // that turns a state into the number of bits to emit
+        int[] spread = spread(normalized, tableLog);
+        int[] start = new int[Histogram.SYMBOLS];
+        int[] deltaFindState = new int[Histogram.SYMBOLS];
+        int[] deltaBits = new int[Histogram.SYMBOLS];
+        int cumulative = 0;
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            int count = normalized[symbol];
+            if (count > 0) {
+                start[symbol] = cumulative;
+                deltaFindState[symbol] = cumulative - count;
+                // States from count << maxBits up emit maxBits bits, the ones
+                // below emit one bit less
+                int maxBits = tableLog - highBit(Math.max(1, count - 1));
+                if (count == 1) {
+                    maxBits = tableLog;
+                }
+                deltaBits[symbol] = (maxBits << BITS_SHIFT) - (count << maxBits);
+                cumulative += count;
+            }
+        }
+        int[] stateTable = new int[tableSize];
+        for (int position = 0; position < tableSize; position++) {
+            stateTable[start[spread[position]]++] = tableSize + position;
+        }
+
+        // Encode backwards, remembering each symbol's bits so they can be written
+        // forwards: value in the high bits, bit count in the low byte
+        int[] emitted = new int[length];
+        int state = tableSize;
+        for (int i = length - 1; i >= 0; i--) {
+            int symbol = data[offset + i] & 0xFF;
+            int bits = (state + deltaBits[symbol]) >>> BITS_SHIFT;
+            emitted[i] = ((state & ((1 << bits) - 1)) << BYTE_BITS) | bits;
+            state = stateTable[(state >>> bits) + deltaFindState[symbol]];
+        }
+
+        int present = 0;
+        for (int count : normalized) {
+            if (count > 0) {
+                present++;
+            }
+        }
+        BitWriter writer = new BitWriter(length / 2 + 16 + 3 * present);
+        writer.write(FORMAT, BYTE_BITS);
+        writer.write(length, INT_BITS);
+        writer.write(tableLog, BYTE_BITS);
+        writer.write(present, SHORT_BITS);
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            if (normalized[symbol] > 0) {
+                writer.write(symbol, BYTE_BITS);
+                writer.write(normalized[symbol], SHORT_BITS);
+            }
+        }
+        writer.write(state - tableSize, tableLog);
+        for (int i = 0; i < length; i++) {
+            writer.write(emitted[i] >>> BYTE_BITS, emitted[i] & BITS_MASK);
+        }
+        return writer.toByteArray();
+    } // method encode
+
+    /**
+     * Decompress bytes produced by encode.
+     *
+     * @param packed compressed bytes
+     * @return the original bytes
+     * @throws IllegalArgumentException if packed is not valid encoder output
+     */
+    public static byte[] decode(byte[] packed) {
+        if (packed.length < 8 || (packed[0] & 0xFF) != FORMAT) {
+            throw new IllegalArgumentException("Not a tANS-compressed message");
+        }
+        BitReader reader = new BitReader(packed, 0, packed.length);
+        reader.read(BYTE_BITS);
+        int length = (int) reader.read(INT_BITS);
+        int tableLog = (int) reader.read(BYTE_BITS);
+        int present = (int) reader.read(SHORT_BITS);
+        if (length < 0 || tableLog < 1 || tableLog > MAX_TABLE_LOG || present > Histogram.SYMBOLS
+                || (present == 0) != (length == 0)) {
+            throw new IllegalArgumentException("Corrupt tANS header");
+        }
+        int[] normalized = new int[Histogram.SYMBOLS];
+        int total = 0;
+        for (int i = 0; i < present; i++) {
+            int symbol = (int) reader.read(BYTE_BITS);
+            int count = (int) reader.read(SHORT_BITS);
+            if (count == 0 || normalized[symbol] != 0) {
+                throw new IllegalArgumentException("Corrupt tANS frequency table");
+            }
+            normalized[symbol] = count;
+            total += count;
+        }
+        byte[] output = new byte[length];
+        if (length > 0) {
+            if (total != 1 << tableLog) {
+                throw new IllegalArgumentException("Corrupt tANS frequency table");
+            }
+            int[] table = decodeTable(normalized, tableLog);
+            int state = (int) reader.read(tableLog);
+            for (int i = 0; i < length; i++) {
+                // One lookup per symbol and no data-dependent branch
+                int entry = table[state];
+                int bits = (entry >>> BITS_SHIFT) & BITS_MASK;
+                reader.refill();
+                int next = (int) (reader.peek(tableLog) >>> (tableLog - bits));
+                reader.consume(bits);
+                output[i] = (byte) (entry >>> SYMBOL_SHIFT);
+                state = (entry & BASE_MASK) + next;
+            }
+            // The encoder starts from state tableSize, which the decoder sees
+            // as 0; any other final state, or bits read from past the end,
+            // means the input was cut short or damaged
+            if (state != 0 || reader.isOverrun()) {
+                throw new IllegalArgumentException("Corrupt or truncated tANS data");
+            }
+        }
+        return output;
+    } // method decode
+
+    /**
+     * Decompress bytes produced by encode(String).
+     *
+     * @param packed compressed bytes
+     * @return the original text
+     */
+    public static String decodeToString(byte[] packed) {
+        return new String(decode(packed), StandardCharsets.UTF_8);
+    } // method decodeToString
+
+    /**
+     * Scale frequencies so that they add up to exactly 2^tableLog, rounding to
+     * the nearest count but keeping every present symbol at 1 or more. What
+     * rounding leaves over or short is settled with the most frequent symbols,
+     * where it changes the probabilities the least.
+     *
+     * @param frequencies count of each symbol
+     * @param tableLog    log2 of the table size
+     * @return normalized count of each symbol
+     */
+    static int[] normalize(int[] frequencies, int tableLog) {
+        int[] normalized = new int[Histogram.SYMBOLS];
+        long total = 0;
+        for (int frequency : frequencies) {
+            total += frequency;
+        }
+        if (total > 0) {
+            int tableSize = 1 << tableLog;
+            int sum = 0;
+            int largest = 0;
+            for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+                if (frequencies[symbol] > 0) {
+                    long scaled = ((long) frequencies[symbol] * tableSize + total / 2) / total;
+                    normalized[symbol] = (int) Math.max(1, scaled);
+                    sum += normalized[symbol];
+                    if (frequencies[symbol] > frequencies[largest]) {
+                        largest = symbol;
+                    }
+                }
+            }
+            if (sum < tableSize || normalized[largest] - (sum - tableSize) >= 1) {
+                normalized[largest] -= sum - tableSize;
+            } else {
+                // Too many symbols were raised to 1: take the excess one count at a
+                // time from whichever symbol has the most
+                while (sum > tableSize) {
+                    int richest = 0;
+                    for (int symbol = 1; symbol < Histogram.SYMBOLS; symbol++) {
+                        if (normalized[symbol] > normalized[richest]) {
+                            richest = symbol;
+                        }
+                    }
+                    normalized[richest]--;
+                    sum--;
+                }
+            }
+        }
+        return normalized;
+    } // method normalize
+
+    /**
+     * Pick a table size: DEFAULT_TABLE_LOG, smaller for short inputs, but large
+     * enough to give every present symbol a state.
+     *
+     * @param frequencies count of each symbol
+     * @param length      number of bytes being compressed
+     * @return log2 of the table size
+     */
+    private static int chooseTableLog(int[] frequencies, int length) {
+        int present = 0;
+        for (int frequency : frequencies) {
+            if (frequency > 0) {
+                present++;
+            }
+        }
+        int tableLog = Math.min(DEFAULT_TABLE_LOG, Math.max(MIN_TABLE_LOG, highBit(Math.max(1, length)) + 1));
+        return Math.max(tableLog, highBit(Math.max(1, present)) + 1);
+    } // helper method chooseTableLog
+
+    /**
+     * Lay out the states of each symbol over the table, stepping by a fixed odd
+     * stride so that every symbol's states are spread out evenly.
+     *
+     * @param normalized normalized count of each symbol
+     * @param tableLog   log2 of the table size
+     * @return the symbol of each state
+     */
+    private static int[] spread(int[] normalized, int tableLog) {
+        int tableSize = 1 << tableLog;
+        int mask = tableSize - 1;
+        int step = (tableSize >>> 1) + (tableSize >>> 3) + 3;
+        int[] spread = new int[tableSize];
+        int position = 0;
+        for (int symbol = 0; symbol < Histogram.SYMBOLS; symbol++) {
+            for (int i = 0; i < normalized[symbol]; i++) {
+                spread[position] = symbol;
+                position = (position + step) & mask;
+            }
+        }
+        return spread;
+    } // helper method spread
+
+    /**
+     * Build the decode table: for every state, its symbol, how many bits to read
+     * and the base that the bits are added to for the next state.
+     *
+     * @param normalized normalized count of each symbol
+     * @param tableLog   log2 of the table size
+     * @return the table, one packed entry per state
+     */
+    private static int[] decodeTable(int[] normalized, int tableLog) {
+        int tableSize = 1 << tableLog;
+        int[] spread = spread(normalized, tableLog);
+        int[] next = Arrays.copyOf(normalized, Histogram.SYMBOLS);
+        int[] table = new int[tableSize];
+        for (int state = 0; state < tableSize; state++) {
+            int symbol = spread[state];
+            int rank = next[symbol]++;
+            int bits = tableLog - highBit(rank);
+            int base = (rank << bits) - tableSize;
+            table[state] = (symbol << SYMBOL_SHIFT) | (bits << BITS_SHIFT) | base;
+        }
+        return table;
+    } // helper method decodeTable
+
+    /**
+     * Position of the highest set bit.
+     *
+     * @param value a positive number
+     * @return floor(log2(value))
+     */
+    private static int highBit(int value) {
+        return Integer.SIZE - 1 - Integer.numberOfLeadingZeros(value);
+    } // helper method highBit
+
+    /** Driver code: compares tANS with Huffman on skewed data */
+    public static void main(String[] args) {
+        Random random = new Random(271);
+        byte[] data = new byte[4 << 20];
+        for (int i = 0; i < data.length; i++) {
+            // One symbol makes up about 90% of the data
+            data[i] = (byte) (random.nextInt(10) == 0 ? 'a' + random.nextInt(8) : ' ');
+        }
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            byte[] tans = encode(data);
+            long tansEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            boolean tansOk = Arrays.equals(data, decode(tans));
+            long tansDecode = System.nanoTime() - start;
+            start = System.nanoTime();
+            byte[] huffman = HuffmanCodec.encode(data);
+            long huffmanEncode = System.nanoTime() - start;
+            start = System.nanoTime();
+            boolean huffmanOk = Arrays.equals(data, HuffmanCodec.decode(huffman));
+            long huffmanDecode = System.nanoTime() - start;
+            System.out.printf("tANS:    %d bytes, encode %.0f MB/s, decode %.0f MB/s, ok %b%n", tans.length,
+                    data.length * 1e3 / tansEncode, data.length * 1e3 / tansDecode, tansOk);
+            System.out.printf("Huffman: %d bytes, encode %.0f MB/s, decode %.0f MB/s, ok %b%n", huffman.length,
+                    data.length * 1e3 / huffmanEncode, data.length * 1e3 / huffmanDecode, huffmanOk);
+        }
+    } // method main
+
+} // class TansCodec